@@ -0,0 +1,76 @@
+package si.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import si.model.Bullet;
+import si.model.BulletPool;
+import si.model.Bunker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bullets against a bunker: finding the first intact cell on a bullet's path, and
+ * eroding the bunker hit after hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BunkerBenchmark {
+    private static final int X = 300;
+    private static final int Y = 350;
+    private static final int WIDTH = 50;
+
+    private Bunker bunker;
+    private Bullet hitting;
+    private Bullet missing;
+    private Bullet[] columns;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        bunker = new Bunker(X, Y);
+        // moving down onto the solid top row
+        hitting = new Bullet(X + 20, Y - 6, false);
+        hitting.move();
+        // moving up through the gap under the arch
+        missing = new Bullet(X + 23, Y + 30, true);
+        missing.move();
+        // fast enough to cross the whole bunker in one step
+        BulletPool pool = new BulletPool(WIDTH);
+        columns = new Bullet[WIDTH];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = pool.acquire(X + i - 2, Y - 10, 60);
+            columns[i].move();
+        }
+    }
+
+    @Benchmark
+    public double timeOfImpactHit() {
+        return bunker.timeOfImpact(hitting);
+    }
+
+    @Benchmark
+    public double timeOfImpactMiss() {
+        return bunker.timeOfImpact(missing);
+    }
+
+    /**
+     * Drops bullets down every column in turn, each one sweeping the full bunker height,
+     * replacing the bunker once it is shot away.
+     */
+    @Benchmark
+    public boolean erode() {
+        Bullet b = columns[next];
+        next = (next + 1) % columns.length;
+        boolean hit = bunker.isHit(b);
+        if (bunker.isAlive()) { // true once every cell is gone
+            bunker = new Bunker(X, Y);
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,85 @@
+package si.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import si.model.Bullet;
+import si.model.BulletPool;
+import si.model.Collision;
+import si.model.Hittable;
+import si.model.Level;
+import si.model.LevelConfig;
+import si.model.Player;
+import si.model.SpaceInvadersGame;
+import si.model.SpatialGrid;
+import si.sim.ScriptedInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bullets against every target on the field, done the way the game finds each bullet's
+ * target: a grid query around its swept path, then the earliest time of impact among the
+ * candidates. Nothing is destroyed, so every invocation does the same work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollisionBenchmark {
+    @Param({"stock", "10x30", "20x50", "50x100"})
+    public String swarm;
+
+    @Param({"16", "256"})
+    public int bullets;
+
+    private SpatialGrid grid;
+    private List<Hittable> candidates = new ArrayList<Hittable>();
+    private BulletPool pool;
+
+    @Setup
+    public void setUp() {
+        LevelConfig config = Sizes.level(swarm);
+        SpaceInvadersGame game = new SpaceInvadersGame(new ScriptedInput(), new LevelConfig[]{config}, 42);
+        Level level = new Level(config, game);
+        grid = new SpatialGrid(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        level.register(grid);
+        grid.insert(new Player());
+        // half going up, half coming down, spread over the screen
+        pool = new BulletPool(bullets);
+        Random random = new Random(42);
+        for (int i = 0; i < bullets; i++) {
+            int x = random.nextInt(SpaceInvadersGame.SCREEN_WIDTH);
+            int y = random.nextInt(SpaceInvadersGame.SCREEN_HEIGHT);
+            pool.acquire(x, y, i % 2 == 0).move();
+        }
+    }
+
+    @Benchmark
+    public int firstTargets() {
+        int hits = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            Bullet b = pool.get(i);
+            candidates.clear();
+            grid.query(b.getSweptMinX(), b.getSweptMinY(), b.getSweptMaxX(), b.getSweptMaxY(), candidates);
+            double first = Collision.MISS;
+            for (int j = 0; j < candidates.size(); j++) {
+                Hittable t = candidates.get(j);
+                if (t.isPlayer() && b.isUpward()) {
+                    continue;
+                }
+                first = Math.min(first, t.timeOfImpact(b));
+            }
+            if (first != Collision.MISS) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,25 @@
+package si.bench;
+
+import si.model.LevelConfig;
+import si.model.SpaceInvadersGame;
+
+/**
+ * Swarm sizes the benchmarks are run at, from the stock game's last level up to
+ * stress-sized swarms.
+ */
+final class Sizes {
+    private Sizes() {
+    }
+
+    /**
+     * @param size "stock" for the last stock level, otherwise rows x columns, e.g. "50x100"
+     */
+    static LevelConfig level(String size) {
+        if (size.equals("stock")) {
+            LevelConfig[] levels = SpaceInvadersGame.DEFAULT_LEVELS;
+            return levels[levels.length - 1];
+        }
+        int x = size.indexOf('x');
+        return new LevelConfig(2, Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1)));
+    }
+}
@@ -0,0 +1,62 @@
+package si.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import si.model.BulletPool;
+import si.model.GameRandom;
+import si.model.Level;
+import si.model.LevelConfig;
+import si.model.SpaceInvadersGame;
+import si.model.Swarm;
+import si.sim.ScriptedInput;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stepping the swarm on its own, and together with the bottom ships deciding whether
+ * to fire as Level.move does every tick. move advances the swarm's tick counter first,
+ * so it covers the ticks that only count as well as the ones that move; the game does
+ * not advance that counter, so moveAndFire moves on every call as play does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwarmBenchmark {
+    @Param({"stock", "10x30", "20x50", "50x100"})
+    public String swarm;
+
+    private Swarm moving;
+    private Level level;
+    private BulletPool enemyBullets;
+    private GameRandom rand;
+
+    @Setup
+    public void setUp() {
+        LevelConfig config = Sizes.level(swarm);
+        SpaceInvadersGame game = new SpaceInvadersGame(new ScriptedInput(), new LevelConfig[]{config}, 42);
+        moving = new Swarm(config.getRows(), config.getCols(), config.getStartingSpeed(), 1, game);
+        level = new Level(config, game);
+        enemyBullets = new BulletPool(256);
+        rand = new GameRandom(42);
+    }
+
+    @Benchmark
+    public Swarm move() {
+        moving.tick();
+        moving.move();
+        return moving;
+    }
+
+    @Benchmark
+    public BulletPool moveAndFire() {
+        enemyBullets.clear();
+        level.move(enemyBullets, rand);
+        return enemyBullets;
+    }
+}
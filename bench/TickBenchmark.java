@@ -0,0 +1,90 @@
+package si.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import si.model.GameSnapshot;
+import si.model.LevelConfig;
+import si.model.SpaceInvadersGame;
+import si.sim.ScriptedInput;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole simulation tick, the unit of work updateGame() runs as many times as real
+ * time allows. Every iteration is a batch of {@link #BATCH} ticks played from a
+ * snapshot of the game's start, restored outside the measurement. The player sweeps
+ * and fires continuously and is put back after each hit the way the engine does, so
+ * nearly every measured tick is a normal playing tick. Scores are per batch.
+ * <p>
+ * A single-shot batch gets no JIT warmup of its own, so the trial setup plays
+ * {@link #WARMUP_BATCHES} batches first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = TickBenchmark.BATCH)
+@Measurement(batchSize = TickBenchmark.BATCH)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TickBenchmark {
+    /** Ticks per iteration, fifty seconds of play. */
+    static final int BATCH = 3000;
+    // batches played before measuring, as the few warmup iterations are too short to compile tick()
+    private static final int WARMUP_BATCHES = 20;
+
+    @Param({"stock", "10x30", "20x50", "50x100"})
+    public String swarm;
+
+    private SpaceInvadersGame game;
+    private ScriptedInput input;
+    private GameSnapshot playing;
+    private long ticks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = new ScriptedInput();
+        game = new SpaceInvadersGame(input, new LevelConfig[]{Sizes.level(swarm)}, 42);
+        input.pressPause();
+        game.checkForPause();
+        step();
+        playing = new GameSnapshot(game.getSnapshotCapacity());
+        game.save(playing);
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            restart();
+            for (int t = 0; t < BATCH; t++) {
+                tick();
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+        game.restore(playing);
+        ticks = 0;
+    }
+
+    @Benchmark
+    public SpaceInvadersGame tick() {
+        step();
+        // lives are not checked, so the batch never ends in a game over
+        if (!game.isPlayerAlive()) {
+            game.resetDestroyedPlayer();
+            input.pressPause();
+            game.checkForPause();
+        }
+        return game;
+    }
+
+    private void step() {
+        boolean goLeft = (ticks++ / 60) % 2 == 0;
+        input.set(goLeft, !goLeft, true);
+        game.tick();
+    }
+}
@@ -4,16 +4,48 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import ucd.comp2011j.engine.Game;
 import ucd.comp2011j.engine.GameManager;
+import si.model.InputRecording;
 import si.model.SpaceInvadersGame;
+import si.net.NetplayGame;
+import si.net.PeerLink;
+import si.net.RollbackSession;
 import ucd.comp2011j.engine.ScoreKeeper;
+import ucd.comp2011j.engine.Screen;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 
 public class ApplicationStart  extends Application {
+    private static final int CAPTURE_BUFFERS = 8; // frames waiting to be written before frames are dropped
+    private static final long LATENCY_REPORT_MILLIS = 5000;
+    private static final long HANDSHAKE_TIMEOUT = 60000;
+    // set by init() when playing over the network
+    private PeerLink netLink;
+    private int netPlayer;
+    private long netSeed;
 
     public static void main(String[] args) {
         launch(args);
     }
 
+    /**
+     * Runs on the launcher thread before {@link #start(Stage)}, so waiting for a netplay
+     * peer never blocks the JavaFX application thread.
+     */
+    @Override
+    public void init() throws Exception {
+        String net = System.getProperty("si.net");
+        if (net != null) {
+            connect(net);
+        }
+    }
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         StackPane root = new StackPane();
@@ -23,8 +55,24 @@ public class ApplicationStart  extends Application {
         MenuListener menuListener = new MenuListener();
         menuListener.setListeners(scene);
         primaryStage.setTitle("Space Invaders");
+        if (netLink != null) {
+            startNetplay(primaryStage, root, scene, playerListener, menuListener);
+            return;
+        }
         SpaceInvadersGame game = new SpaceInvadersGame(playerListener);
-        GameScreen gameScreen = new GameScreen(game);
+        String recordTo = System.getProperty("si.record");
+        if (recordTo != null) {
+            // keep the input of the last game played so it can be replayed with ReplayRunner
+            InputRecording recording = game.startRecording();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(recordTo))) {
+                    recording.write(out);
+                } catch (IOException e) {
+                    System.err.println("Could not save recording to " + recordTo + ": " + e);
+                }
+            }));
+        }
+        Screen gameScreen = createGameScreen(game, playerListener);
         MenuScreen menuScreen = new MenuScreen();
         ScoreKeeper scoreKeeper = new ScoreKeeper("scores.txt");
         GameManager mmm = new GameManager(game, root, menuListener, menuScreen,new AboutScreen(),new ScoreScreen(scoreKeeper), gameScreen, scoreKeeper);
@@ -33,4 +81,111 @@ public class ApplicationStart  extends Application {
         primaryStage.show();
         mmm.run();
     }
+
+    /**
+     * The canvas renderer by default, or with -Dsi.renderer=software the renderer that
+     * draws into a framebuffer in plain Java and uploads it once per frame. With
+     * -Dsi.capture=file every painted frame is also recorded to the file, which
+     * CaptureReader turns back into images. See {@link #createLatencyProbe} for
+     * -Dsi.latency.
+     */
+    private static Screen createGameScreen(SpaceInvadersGame game, PlayerListener playerListener) throws IOException {
+        String captureTo = System.getProperty("si.capture");
+        CaptureWriter capture = null;
+        if (captureTo != null) {
+            CaptureWriter writer = new CaptureWriter(new File(captureTo), CAPTURE_BUFFERS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    writer.close();
+                    System.out.println("Captured " + writer.getAccepted() + " frames to " + captureTo
+                            + ", dropped " + writer.getDropped());
+                } catch (IOException e) {
+                    System.err.println("Could not finish capture " + captureTo + ": " + e);
+                }
+            }));
+            capture = writer;
+        }
+        LatencyProbe probe = createLatencyProbe(game, playerListener);
+        if ("software".equals(System.getProperty("si.renderer"))) {
+            SoftwareScreen screen = new SoftwareScreen(game);
+            screen.setCapture(capture);
+            screen.setLatencyProbe(probe);
+            return screen;
+        }
+        GameScreen gameScreen = new GameScreen(game);
+        gameScreen.setCapture(capture);
+        gameScreen.setLatencyProbe(probe);
+        playerListener.setProfilerToggle(gameScreen::toggleProfiler);
+        return gameScreen;
+    }
+
+    /**
+     * With -Dsi.latency=report, measures input-to-photon latency and prints the figures
+     * for the last window every few seconds and for the whole run on exit. With
+     * -Dsi.latency=synthetic a {@link SyntheticInput} also plays the game, so the
+     * measurement can run unattended.
+     *
+     * @return the probe, or null when latency is not measured
+     */
+    private static LatencyProbe createLatencyProbe(SpaceInvadersGame game, PlayerListener playerListener) {
+        String mode = System.getProperty("si.latency");
+        if (mode == null) {
+            return null;
+        }
+        LatencyProbe probe = new LatencyProbe();
+        Thread reporter = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(LATENCY_REPORT_MILLIS);
+                    System.out.println(probe.report());
+                }
+            } catch (InterruptedException e) {
+                // shutting down
+            }
+        }, "latency-report");
+        reporter.setDaemon(true);
+        reporter.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println("whole run " + probe.reportTotal())));
+        if ("synthetic".equals(mode)) {
+            new SyntheticInput(playerListener, game, System.nanoTime()).start();
+        }
+        return probe;
+    }
+
+    /**
+     * Co-op over the network, selected with -Dsi.net=player,localPort,peerHost:peerPort
+     * where player is 1 on the instance that hosts and 2 on the other. Waits for the
+     * peer, so the window only opens once both are connected.
+     */
+    private void connect(String net) throws IOException {
+        String[] parts = net.split(",");
+        netPlayer = Integer.parseInt(parts[0]);
+        int localPort = Integer.parseInt(parts[1]);
+        int colon = parts[2].lastIndexOf(':');
+        InetSocketAddress peer = new InetSocketAddress(parts[2].substring(0, colon),
+                Integer.parseInt(parts[2].substring(colon + 1)));
+        PeerLink link = new PeerLink(localPort, peer);
+        try {
+            netSeed = link.handshake(System.nanoTime(), netPlayer == 1, HANDSHAKE_TIMEOUT);
+        } catch (IOException e) {
+            link.close();
+            throw e;
+        }
+        netLink = link;
+    }
+
+    private void startNetplay(Stage primaryStage, StackPane root, Scene scene, PlayerListener playerListener,
+                              MenuListener menuListener) throws IOException {
+        SpaceInvadersGame game = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, netSeed, 2);
+        Game netGame = new NetplayGame(new RollbackSession(game, netPlayer - 1, netLink), playerListener);
+        primaryStage.setTitle("Space Invaders - player " + netPlayer);
+        Screen gameScreen = createGameScreen(game, playerListener);
+        MenuScreen menuScreen = new MenuScreen();
+        ScoreKeeper scoreKeeper = new ScoreKeeper("scores.txt");
+        GameManager mmm = new GameManager(netGame, root, menuListener, menuScreen, new AboutScreen(), new ScoreScreen(scoreKeeper), gameScreen, scoreKeeper);
+        menuScreen.paint();
+        primaryStage.setScene(scene);
+        primaryStage.show();
+        mmm.run();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package si.display;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import si.model.RenderFrame;
+
+import java.util.Arrays;
+
+/**
+ * Off-screen image of the bunkers, composited onto the canvas with one draw call.
+ * The image remembers which cells it shows and, on each update, only the cells whose
+ * occupancy changed since then are cleared or filled, so the cost of a frame no
+ * longer depends on how many bricks are left. A new set of bunkers (a new level)
+ * rebuilds the image.
+ * <p>
+ * {@link #update(RenderFrame)} reports whether the image changed, so that a screen
+ * which only repaints what moved knows to repaint the bunkers' area.
+ */
+public class BunkerLayer {
+    private static final int GREEN = 0xFF008000; // Color.GREEN
+    private static final int CLEAR = 0x00000000;
+
+    private int generation;
+    private long[] drawn = new long[0]; // occupancy bits last written to the image, per bunker row
+    private WritableImage image;
+    private int x, y;
+    private int[] solid = new int[0];
+    private int[] empty = new int[0];
+
+    /**
+     * Draws the layer as of the last update.
+     */
+    public void draw(GraphicsContext gc) {
+        if (image != null) {
+            gc.drawImage(image, x, y);
+        }
+    }
+
+    /**
+     * Brings the layer up to date with the bunkers of the given frame.
+     *
+     * @return whether any pixel of the layer changed
+     */
+    public boolean update(RenderFrame frame) {
+        if (frame.getBunkerCount() == 0) {
+            return false;
+        }
+        boolean changed = image == null || frame.getGeneration() != generation;
+        if (changed) {
+            rebuild(frame);
+        }
+        PixelWriter writer = image.getPixelWriter();
+        int first = 0;
+        for (int i = 0; i < frame.getBunkerCount(); i++) {
+            for (int r = 0; r < frame.getBunkerRows(i); r++) {
+                long bits = frame.getBunkerRowBits(first, r);
+                long diff = bits ^ drawn[first + r];
+                changed |= diff != 0;
+                while (diff != 0) {
+                    int c = Long.numberOfTrailingZeros(diff);
+                    diff &= diff - 1;
+                    writeCell(writer, frame, i, c, r, (bits >>> c & 1) != 0);
+                }
+                drawn[first + r] = bits;
+            }
+            first += frame.getBunkerRows(i);
+        }
+        return changed;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public double getWidth() {
+        return image == null ? 0 : image.getWidth();
+    }
+
+    public double getHeight() {
+        return image == null ? 0 : image.getHeight();
+    }
+
+    private void rebuild(RenderFrame frame) {
+        generation = frame.getGeneration();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = 0, maxY = 0;
+        int cell = 0, rows = 0;
+        for (int i = 0; i < frame.getBunkerCount(); i++) {
+            int size = frame.getBunkerCellSize(i);
+            minX = Math.min(minX, frame.getBunkerX(i));
+            minY = Math.min(minY, frame.getBunkerY(i));
+            maxX = Math.max(maxX, frame.getBunkerX(i) + frame.getBunkerColumns(i) * size);
+            maxY = Math.max(maxY, frame.getBunkerY(i) + frame.getBunkerRows(i) * size);
+            cell = Math.max(cell, size);
+            rows += frame.getBunkerRows(i);
+        }
+        x = minX;
+        y = minY;
+        // a fresh image is fully transparent, so every intact cell counts as changed
+        image = new WritableImage(maxX - minX, maxY - minY);
+        if (drawn.length < rows) {
+            drawn = new long[rows];
+        }
+        Arrays.fill(drawn, 0);
+        if (solid.length < cell * cell) {
+            solid = new int[cell * cell];
+            empty = new int[cell * cell];
+            Arrays.fill(solid, GREEN);
+            Arrays.fill(empty, CLEAR);
+        }
+    }
+
+    private void writeCell(PixelWriter writer, RenderFrame frame, int bunker, int col, int row, boolean intact) {
+        int size = frame.getBunkerCellSize(bunker);
+        writer.setPixels(frame.getBunkerX(bunker) + col * size - x, frame.getBunkerY(bunker) + row * size - y,
+                size, size, PixelFormat.getIntArgbInstance(), intact ? solid : empty, 0, size);
+    }
+}
@@ -0,0 +1,158 @@
+package si.display;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Decodes a capture written by {@link CaptureWriter}, one frame at a time into the
+ * same pixel array, and can export the frames as PNG images.
+ */
+public class CaptureReader implements AutoCloseable {
+    private DataInputStream in;
+    private int width;
+    private int height;
+    private int[] pixels;
+    private byte[] data = new byte[0];
+    private long tick;
+    private int droppedBefore;
+    private boolean key;
+
+    public CaptureReader(InputStream stream) throws IOException {
+        in = new DataInputStream(stream);
+        if (in.readInt() != CaptureWriter.MAGIC) {
+            throw new IOException("Not a capture");
+        }
+        int version = in.readInt();
+        if (version != CaptureWriter.VERSION) {
+            throw new IOException("Unsupported capture version " + version);
+        }
+        width = in.readInt();
+        height = in.readInt();
+        pixels = new int[width * height];
+    }
+
+    /**
+     * Decodes the next frame into {@link #getPixels()}.
+     *
+     * @return false at the end of the capture
+     */
+    public boolean next() throws IOException {
+        try {
+            tick = in.readLong();
+        } catch (EOFException e) {
+            return false;
+        }
+        droppedBefore = in.readInt();
+        key = in.readBoolean();
+        int length = in.readInt();
+        if (data.length < length) {
+            data = new byte[length];
+        }
+        in.readFully(data, 0, length);
+        int at = 0, i = 0;
+        while (at < length) {
+            int skip = 0, run = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[at++];
+                skip |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[at++];
+                run |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            int colour = (data[at] & 0xFF) << 24 | (data[at + 1] & 0xFF) << 16 | (data[at + 2] & 0xFF) << 8
+                    | (data[at + 3] & 0xFF);
+            at += 4;
+            i += skip;
+            if (i + run > pixels.length) {
+                throw new IOException("Corrupt frame at tick " + tick);
+            }
+            Arrays.fill(pixels, i, i + run, colour);
+            i += run;
+        }
+        return true;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return how many frames the writer dropped just before this one
+     */
+    public int getDroppedBefore() {
+        return droppedBefore;
+    }
+
+    public boolean isKeyFrame() {
+        return key;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Usage: CaptureReader capture-file [output-directory]
+     * <p>
+     * Prints a summary of the capture and, given a directory, saves every frame in it
+     * as a PNG named after its position in the capture and its tick. A tick painted more
+     * than once gives one image per paint.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CaptureReader capture-file [output-directory]");
+            System.exit(1);
+        }
+        File dir = args.length == 2 ? new File(args[1]) : null;
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        PngWriter png = new PngWriter();
+        int frames = 0;
+        long dropped = 0, first = -1;
+        try (CaptureReader reader = new CaptureReader(new BufferedInputStream(new FileInputStream(args[0])))) {
+            while (reader.next()) {
+                frames++;
+                dropped += reader.getDroppedBefore();
+                if (first < 0) {
+                    first = reader.getTick();
+                }
+                if (dir != null) {
+                    File file = new File(dir, String.format("frame-%06d-tick-%06d.png", frames, reader.getTick()));
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                        png.write(reader.getPixels(), reader.getWidth(), reader.getHeight(), out);
+                    }
+                }
+            }
+        }
+        System.out.printf("%d frames from tick %d, %d dropped%n", frames, first, dropped);
+    }
+}
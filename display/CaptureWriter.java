@@ -0,0 +1,217 @@
+package si.display;
+
+import si.model.RenderFrame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records painted frames to a file without holding up the game. Each offered
+ * {@link RenderFrame} is copied into the next free buffer of a fixed ring, a few
+ * hundred bytes, and a background thread draws it with its own {@link SoftwareRenderer}
+ * and encodes and writes the pixels; when every buffer is still waiting to be written
+ * the frame is dropped instead, so a slow disk costs frames, never frame time.
+ * <p>
+ * The file starts with "SIVC", a version, the width and the height. Each frame then
+ * has its tick, the number of frames dropped just before it, a key flag and the
+ * length of its data. The data is a sequence of (skip, run, colour) triples, the
+ * counts as varints: skip pixels keep their colour from the previous frame, then run
+ * pixels take the colour. Key frames are coded against an empty frame, so they can be
+ * decoded on their own. Mostly black frames with few moving sprites code to a few
+ * kilobytes. {@link CaptureReader} decodes the file.
+ */
+public class CaptureWriter {
+    static final int MAGIC = 0x53495643; // "SIVC"
+    static final int VERSION = 1;
+    private static final int KEY_INTERVAL = 120; // frames between key frames
+    private final int width;
+    private final int height;
+    private final RenderFrame[] slots;
+    private final double[] slotAlpha;
+    private final int[] slotDropped;
+    // frames offered and frames written; only the game thread moves tail, only the writer head
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private volatile boolean closed;
+    private final Thread writer;
+    private final DataOutputStream out;
+    private IOException failure;
+    private int dropped; // since the last accepted frame, game thread only
+    private long totalDropped;
+
+    // writer thread state
+    private final SoftwareRenderer renderer = new SoftwareRenderer();
+    private int[] previous;
+    private byte[] data = new byte[1 << 16];
+    private int length;
+    private long written;
+
+    /**
+     * @param buffers how many frames may wait to be written before frames are dropped
+     */
+    public CaptureWriter(File file, int buffers) throws IOException {
+        width = renderer.getWidth();
+        height = renderer.getHeight();
+        slots = new RenderFrame[buffers];
+        for (int i = 0; i < buffers; i++) {
+            slots[i] = new RenderFrame();
+        }
+        slotAlpha = new double[buffers];
+        slotDropped = new int[buffers];
+        previous = new int[width * height];
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        writer = new Thread(this::drain, "capture-writer");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Queues a copy of the frame for drawing and writing, called from one thread only.
+     *
+     * @param alpha the interpolation the frame was painted with
+     * @return false if the frame was dropped because the writer is behind or closed
+     */
+    public boolean offer(RenderFrame frame, double alpha) {
+        long t = tail.get();
+        if (closed || t - head.get() == slots.length) {
+            dropped++;
+            totalDropped++;
+            return false;
+        }
+        int slot = (int) (t % slots.length);
+        slots[slot].copyFrom(frame);
+        slotAlpha[slot] = alpha;
+        slotDropped[slot] = dropped;
+        dropped = 0;
+        tail.lazySet(t + 1);
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get()) {
+                if (closed) {
+                    break;
+                }
+                LockSupport.parkNanos(this, 10000000L);
+                continue;
+            }
+            int slot = (int) (h % slots.length);
+            try {
+                if (failure == null) {
+                    renderer.render(slots[slot], slotAlpha[slot]);
+                    writeFrame(renderer.getPixels(), slots[slot].getTick(), slotDropped[slot]);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            head.lazySet(h + 1);
+        }
+    }
+
+    private void writeFrame(int[] frame, long tick, int droppedBefore) throws IOException {
+        boolean key = written % KEY_INTERVAL == 0;
+        length = 0;
+        int n = width * height;
+        int i = 0;
+        while (i < n) {
+            int skip = 0;
+            if (!key) {
+                while (i < n && frame[i] == previous[i]) {
+                    i++;
+                    skip++;
+                }
+                if (i == n) {
+                    putVarint(skip);
+                    putVarint(0);
+                    putInt(0);
+                    break;
+                }
+            }
+            int colour = frame[i];
+            int run = 1;
+            i++;
+            while (i < n && frame[i] == colour) {
+                i++;
+                run++;
+            }
+            putVarint(skip);
+            putVarint(run);
+            putInt(colour);
+        }
+        out.writeLong(tick);
+        out.writeInt(droppedBefore);
+        out.writeBoolean(key);
+        out.writeInt(length);
+        out.write(data, 0, length);
+        System.arraycopy(frame, 0, previous, 0, n);
+        written++;
+    }
+
+    private void putVarint(int v) {
+        while ((v & ~0x7F) != 0) {
+            put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        put((byte) v);
+    }
+
+    private void putInt(int v) {
+        put((byte) (v >>> 24));
+        put((byte) (v >>> 16));
+        put((byte) (v >>> 8));
+        put((byte) v);
+    }
+
+    private void put(byte b) {
+        if (length == data.length) {
+            byte[] bigger = new byte[data.length * 2];
+            System.arraycopy(data, 0, bigger, 0, length);
+            data = bigger;
+        }
+        data[length++] = b;
+    }
+
+    /**
+     * @return frames dropped so far because the writer was behind
+     */
+    public long getDropped() {
+        return totalDropped;
+    }
+
+    /**
+     * @return frames accepted so far, written or waiting to be
+     */
+    public long getAccepted() {
+        return tail.get();
+    }
+
+    /**
+     * Writes the frames still waiting, then closes the file. Later offers are dropped.
+     */
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package si.display;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * A set of screen rectangles that need repainting. Rectangles are widened to whole
+ * pixels, plus one pixel for smoothed edges, clipped to the screen, and merged with
+ * any rectangle they overlap or touch, so the set stays small and its area is not
+ * counted twice.
+ */
+public class DirtyRegion {
+    private int[] rects = new int[4 * 16]; // minX, minY, maxX, maxY of each rectangle
+    private int count;
+    private int width;
+    private int height;
+
+    public DirtyRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public void add(double minX, double minY, double maxX, double maxY) {
+        int x0 = Math.max(0, (int) Math.floor(minX) - 1);
+        int y0 = Math.max(0, (int) Math.floor(minY) - 1);
+        int x1 = Math.min(width, (int) Math.ceil(maxX) + 1);
+        int y1 = Math.min(height, (int) Math.ceil(maxY) + 1);
+        if (x0 < x1 && y0 < y1) {
+            merge(x0, y0, x1, y1);
+        }
+    }
+
+    public void addAll(DirtyRegion other) {
+        for (int r = 0; r < 4 * other.count; r += 4) {
+            merge(other.rects[r], other.rects[r + 1], other.rects[r + 2], other.rects[r + 3]);
+        }
+    }
+
+    private void merge(int x0, int y0, int x1, int y1) {
+        int i = 0;
+        while (i < count) {
+            int r = 4 * i;
+            if (x0 <= rects[r + 2] && rects[r] <= x1 && y0 <= rects[r + 3] && rects[r + 1] <= y1) {
+                x0 = Math.min(x0, rects[r]);
+                y0 = Math.min(y0, rects[r + 1]);
+                x1 = Math.max(x1, rects[r + 2]);
+                y1 = Math.max(y1, rects[r + 3]);
+                // the grown rectangle may now reach ones already passed, so start over
+                count--;
+                System.arraycopy(rects, 4 * count, rects, r, 4);
+                i = 0;
+            } else {
+                i++;
+            }
+        }
+        if (4 * count == rects.length) {
+            int[] bigger = new int[rects.length * 2];
+            System.arraycopy(rects, 0, bigger, 0, rects.length);
+            rects = bigger;
+        }
+        int r = 4 * count++;
+        rects[r] = x0;
+        rects[r + 1] = y0;
+        rects[r + 2] = x1;
+        rects[r + 3] = y1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the number of pixels covered
+     */
+    public long getArea() {
+        long area = 0;
+        for (int r = 0; r < 4 * count; r += 4) {
+            area += (long) (rects[r + 2] - rects[r]) * (rects[r + 3] - rects[r + 1]);
+        }
+        return area;
+    }
+
+    /**
+     * Clears every rectangle to transparent.
+     */
+    public void clearRects(GraphicsContext gc) {
+        for (int r = 0; r < 4 * count; r += 4) {
+            gc.clearRect(rects[r], rects[r + 1], rects[r + 2] - rects[r], rects[r + 3] - rects[r + 1]);
+        }
+    }
+
+    /**
+     * Restricts further drawing to the rectangles. Call between {@code gc.save()} and
+     * {@code gc.restore()}.
+     */
+    public void clip(GraphicsContext gc) {
+        gc.beginPath();
+        for (int r = 0; r < 4 * count; r += 4) {
+            gc.rect(rects[r], rects[r + 1], rects[r + 2] - rects[r], rects[r + 3] - rects[r + 1]);
+        }
+        gc.clip();
+    }
+}
@@ -0,0 +1,57 @@
+package si.display;
+
+import si.model.FrameExchange;
+import si.model.InputRecording;
+import si.sim.ReplayRunner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Replays a recording headlessly and saves every n-th tick as a PNG drawn by the
+ * {@link SoftwareRenderer}. No toolkit is started, so it runs in CI, and because
+ * replays are exact the images can be compared byte for byte between builds. It lives
+ * next to the renderer so that si.sim stays free of display code.
+ */
+public class FrameCapture {
+
+    /**
+     * Usage: FrameCapture recording-file output-directory [interval]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: FrameCapture recording-file output-directory [interval]");
+            System.exit(1);
+        }
+        int interval = args.length == 3 ? Integer.parseInt(args[2]) : 60;
+        InputRecording recording;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]))) {
+            recording = InputRecording.read(in);
+        }
+        File dir = new File(args[1]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        ReplayRunner replay = new ReplayRunner(recording);
+        FrameExchange frames = replay.getGame().getFrameExchange();
+        SoftwareRenderer renderer = new SoftwareRenderer();
+        int saved = 0;
+        for (long tick = 0; replay.step(); tick++) {
+            if (tick % interval == 0) {
+                renderer.render(frames.getLatest(), 1);
+                File file = new File(dir, String.format("frame-%06d.png", tick));
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    renderer.writePng(out);
+                }
+                saved++;
+            }
+        }
+        System.out.printf("%d frames written to %s%n", saved, dir);
+    }
+}
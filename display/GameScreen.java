@@ -1,151 +1,340 @@
 package si.display;
 
-import javafx.geometry.Rectangle2D;
+import javafx.application.Platform;
 import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
+import jdk.jfr.EventType;
 import si.model.*;
+import si.trace.FrameEvent;
 import ucd.comp2011j.engine.Screen;
 
+import java.util.List;
+
+/**
+ * Draws the game on three stacked canvases: a black background painted once, the
+ * moving entities, and on top the text, which is only repainted when the lives, score,
+ * pause message or profiler figures it shows change. On the entity layer only the
+ * areas that entities left or entered are cleared and redrawn, unless that adds up
+ * to most of the screen, in which case the whole layer is repainted. Everything is
+ * drawn from the latest {@link RenderFrame} the game published, never from the live
+ * entities, so painting allocates nothing and always shows one whole tick. The engine
+ * only places {@link #getCanvas()}, the entity layer, on screen; the other two layers
+ * follow it into whichever pane it is added to.
+ */
 public class GameScreen implements Screen {
     private static final long serialVersionUID = -8282302849760730222L;
+    private static final EventType FRAME_EVENT = EventType.getEventType(FrameEvent.class); // so idle paints allocate no event
+    private static final int NO_MESSAGE = 0;
+    private static final int PAUSE_MESSAGE = 1;
+    private static final int GAME_OVER_MESSAGE = 2;
+    // share of the screen above which a full repaint is cheaper than many small ones
+    private static final double FULL_REPAINT_AREA = 0.5;
     private SpaceInvadersGame game;
     private Canvas canvas;
+    private Canvas background;
+    private Canvas hud;
+    private Font hudFont = new Font("Arial", 24);
+    private Font gameOverFont = new Font("Arial", 48);
+    // what the hud layer currently shows
+    private int hudLives = -1;
+    private int hudScore = -1;
+    private int hudMessage = -1;
+    private String[] hudProfilerLines;
+    private double alpha; // interpolation between the last two simulation ticks
+    private static final long PROFILER_WINDOW = 1000000000L; // overlay refresh period in ns
+    private boolean showProfiler;
+    private String[] profilerLines = new String[0]; // figures from the last complete window
+    private long profilerWindowStart;
+    private Font profilerFont = new Font("Monospaced", 12);
+    private SpriteAtlas atlas = new SpriteAtlas();
+    private WritableImage atlasImage;
+    private CaptureWriter capture;
+    private LatencyProbe latencyProbe;
+    private BunkerLayer bunkerLayer = new BunkerLayer();
+    private FrameExchange frames;
+    private int lastGeneration; // a new generation means a new level, which is repainted in full
+    // entity bounds drawn in the previous and the current frame, and what to repaint
+    private DirtyRegion previous = new DirtyRegion(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+    private DirtyRegion drawn = new DirtyRegion(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+    private DirtyRegion dirty = new DirtyRegion(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
 
     public Canvas getCanvas(){return canvas;}
 
     public GameScreen(SpaceInvadersGame game) {
         this.game = game;
+        this.frames = game != null ? game.getFrameExchange() : null;
         this.canvas = new Canvas(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        this.background = new Canvas(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        this.hud = new Canvas(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        hud.setMouseTransparent(true);
+        GraphicsContext gc = background.getGraphicsContext2D();
+        gc.setFill(Color.BLACK);
+        gc.fillRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        // the parent's child list is mid-change while this fires, so move the layers afterwards
+        canvas.parentProperty().addListener((o, oldParent, newParent) -> Platform.runLater(this::attachLayers));
     }
 
-    private void drawShape(GraphicsContext gc, Player p) {
-        int x = p.getX();
-        int y = p.getY();
-        int[] x_coords = new int[]{0, 2, 2, 3, 3, 4, 4, 5, 5, 7, 7, 0, 0};
-        int[] y_coords = new int[]{2, 2, 1, 1, 0, 0, 1, 1, 2, 2, 4, 4, 2};
-        double[] x_adjusted = new double[x_coords.length];
-        double[] y_adjusted = new double[y_coords.length];
-        for (int i = 0; i < x_coords.length; i++) {
-            x_adjusted[i] = x + x_coords[i] * Player.SHIP_SCALE;
-            y_adjusted[i] = y + y_coords[i] * Player.SHIP_SCALE;
+    /**
+     * Puts the background just below the entity canvas and the hud just above it, in
+     * the same pane, or takes them off screen when the entity canvas has been removed.
+     */
+    private void attachLayers() {
+        Parent parent = canvas.getParent();
+        for (Canvas layer : new Canvas[]{background, hud}) {
+            Parent old = layer.getParent();
+            if (old != parent && old instanceof Pane) {
+                ((Pane) old).getChildren().remove(layer);
+            }
+        }
+        if (parent instanceof Pane) {
+            List<Node> children = ((Pane) parent).getChildren();
+            if (background.getParent() != parent) {
+                children.add(children.indexOf(canvas), background);
+            }
+            if (hud.getParent() != parent) {
+                children.add(children.indexOf(canvas) + 1, hud);
+            }
         }
-        gc.setFill(Color.GREEN);
-        gc.fillPolygon(x_adjusted, y_adjusted, x_adjusted.length);
     }
 
-    private void drawShape(GraphicsContext gc, Bullet b) {
-        gc.setFill(Color.GREEN);
-        gc.fillRect(b.getX(), b.getY(), b.BULLET_WIDTH, b.BULLET_HEIGHT);
+    /**
+     * Sends every frame painted from now on to the capture, or stops capturing if null.
+     * The canvas cannot be read back cheaply, so the capture redraws the frames with a
+     * {@link SoftwareRenderer} on its own thread, without the profiler.
+     */
+    public void setCapture(CaptureWriter capture) {
+        this.capture = capture;
     }
 
-    private void drawShape(GraphicsContext gc, EnemyShip es) {
-        if (es.getType() == AlienType.A) {
-            drawEnemyA(gc, es);
-        } else if (es.getType() == AlienType.B) {
-            drawEnemyB(gc, es);
-        } else {
-            drawEnemyC(gc, es);
-        }
+    /**
+     * Reports the end of every paint to the probe, or stops if null.
+     */
+    public void setLatencyProbe(LatencyProbe probe) {
+        latencyProbe = probe;
     }
 
-    private void drawEnemyA(GraphicsContext gc, EnemyShip es) {
-        int x = es.getX();
-        int y = es.getY();
-        int[] x_coords = new int[]{0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 8, 8, 7, 7, 6, 6, 5, 5, 4, 4, 3, 3, 2, 2, 1, 1, 0};
-        int[] y_coords = new int[]{7, 4, 4, 3, 3, 2, 2, 1, 1, 2, 2, 1, 1, 2, 2, 3, 3, 4, 4, 7, 7, 5, 5, 7, 7, 6, 6, 7, 7, 6, 6, 7, 7, 5, 5, 7, 7};
-        double[] x_adjusted = new double[x_coords.length];
-        double[] y_adjusted = new double[y_coords.length];
-        for (int i = 0; i < x_coords.length; i++) {
-            x_adjusted[i] = x + x_coords[i] * EnemyShip.SHIP_SCALE;
-            y_adjusted[i] = y + y_coords[i] * EnemyShip.SHIP_SCALE;
+    /**
+     * Shows or hides the profiler overlay; the game is only profiled while it is shown.
+     */
+    public void toggleProfiler() {
+        showProfiler = !showProfiler;
+        TickProfiler profiler = game.getProfiler();
+        profiler.setEnabled(showProfiler);
+        profiler.reset();
+        profilerLines = new String[]{"profiling..."};
+        profilerWindowStart = System.nanoTime();
+    }
+
+    /**
+     * Turns the last window's histograms into text and starts a new window. The text
+     * is only rebuilt once per window so the overlay costs little to draw.
+     */
+    private void updateProfilerLines() {
+        long now = System.nanoTime();
+        if (now - profilerWindowStart < PROFILER_WINDOW) {
+            return;
         }
-        gc.setFill(Color.GREEN);
-        gc.fillPolygon(x_adjusted, y_adjusted, x_adjusted.length);
-        gc.fillRect(x + 2 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 0, EnemyShip.SHIP_SCALE, EnemyShip.SHIP_SCALE);
-        gc.fillRect(x + 6 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 0, EnemyShip.SHIP_SCALE, EnemyShip.SHIP_SCALE);
+        profilerWindowStart = now;
+        TickProfiler profiler = game.getProfiler();
+        String[] lines = new String[TickProfiler.PHASES + 3];
+        lines[0] = String.format("%-14s%8s%8s%8s", "phase (us)", "p50", "p99", "max");
+        for (int i = 0; i < TickProfiler.PHASES; i++) {
+            Histogram h = profiler.getPhase(i);
+            lines[i + 1] = String.format("%-14s%8.1f%8.1f%8.1f", TickProfiler.getPhaseName(i),
+                    h.getPercentile(0.5) / 1000.0, h.getPercentile(0.99) / 1000.0, h.getMax() / 1000.0);
+        }
+        Histogram entities = profiler.getEntities();
+        Histogram tests = profiler.getCollisionTests();
+        lines[TickProfiler.PHASES + 1] = String.format("%-14s%8d%8d%8d", "entities",
+                entities.getPercentile(0.5), entities.getPercentile(0.99), entities.getMax());
+        lines[TickProfiler.PHASES + 2] = String.format("%-14s%8d%8d%8d", "hit tests",
+                tests.getPercentile(0.5), tests.getPercentile(0.99), tests.getMax());
+        profilerLines = lines;
+        profiler.reset();
+    }
 
-        // creating eye holes
-        gc.setFill(Color.BLACK);
-        gc.fillRect(x + 3 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 3, EnemyShip.SHIP_SCALE, EnemyShip.SHIP_SCALE);
-        gc.fillRect(x + 5 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 3, EnemyShip.SHIP_SCALE, EnemyShip.SHIP_SCALE);
+    private void drawProfiler(GraphicsContext gc) {
+        gc.setFill(Color.rgb(0, 0, 0, 0.7));
+        gc.fillRect(0, 30, 300, 16 * profilerLines.length + 8);
+        gc.setFill(Color.YELLOW);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.setFont(profilerFont);
+        for (int i = 0; i < profilerLines.length; i++) {
+            gc.fillText(profilerLines[i], 4, 34 + 16 * i);
+        }
     }
 
-    private void drawEnemyB(GraphicsContext gc, EnemyShip es) {
-        int x = es.getX();
-        int y = es.getY();
-        int[] x_coords = new int[]{3, 2, 1, 0, 3, 6, 0, 2, 5, 1, 3, 6, 0, 2, 5, 7};
-        int[] y_coords = new int[]{0, 1, 2, 3, 3, 3, 4, 5, 5, 6, 6, 6, 7, 7, 7, 7};
-        int[] widths = new int[]{2, 4, 6, 2, 2, 2, 8, 1, 1, 1, 2, 1, 1, 1, 1, 1};
-        int[] heights = new int[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+    /**
+     * Repaints the hud layer if anything it shows has changed since it was last painted.
+     */
+    private void paintHud(RenderFrame f) {
+        int lives = f.getLives();
+        int score = f.getScore();
+        int message = NO_MESSAGE;
+        if ((f.isPaused() || !f.isPlayerAlive()) && lives > 0) {
+            message = PAUSE_MESSAGE;
+        } else if (!f.isPlayerAlive() && lives == 0) {
+            message = GAME_OVER_MESSAGE;
+        }
+        String[] profiler = showProfiler ? profilerLines : null;
+        if (lives == hudLives && score == hudScore && message == hudMessage && profiler == hudProfilerLines) {
+            return;
+        }
+        hudLives = lives;
+        hudScore = score;
+        hudMessage = message;
+        hudProfilerLines = profiler;
+
+        GraphicsContext gc = hud.getGraphicsContext2D();
+        gc.clearRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
         gc.setFill(Color.GREEN);
-        for (int i = 0; i < x_coords.length; i++) {
-            gc.fillRect(x + x_coords[i] * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * y_coords[i], EnemyShip.SHIP_SCALE * widths[i], EnemyShip.SHIP_SCALE * heights[i]);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.setFont(hudFont);
+        gc.fillText("Lives: " + lives, 0, 0);
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.fillText("Score: " + score, SpaceInvadersGame.SCREEN_WIDTH, 0);
+        if (message != NO_MESSAGE) {
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.setFont(message == PAUSE_MESSAGE ? hudFont : gameOverFont);
+            gc.fillText(message == PAUSE_MESSAGE ? "Press 'p' to continue " : "Game over ",
+                    SpaceInvadersGame.SCREEN_WIDTH/2, SpaceInvadersGame.SCREEN_HEIGHT/2);
+        }
+        if (profiler != null) {
+            drawProfiler(gc);
         }
     }
 
-    private void drawEnemyC(GraphicsContext gc, EnemyShip es) {
-        int x = es.getX();
-        int y = es.getY();
-        int[] x_coords = new int[]{3, 7, 7, 9, 9, 10, 10, 8, 8, 9, 9, 10, 10, 8, 8, 7, 7, 6, 6, 4, 4, 3, 3, 2, 2, 0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 3, 3};
-        int[] y_coords = new int[]{0, 0, 1, 1, 2, 2, 5, 5, 6, 6, 7, 7, 8, 8, 7, 7, 6, 6, 7, 7, 6, 6, 7, 7, 8, 8, 7, 7, 6, 6, 5, 5, 2, 2, 1, 1, 0};
-        double[] x_adjusted = new double[x_coords.length];
-        double[] y_adjusted = new double[y_coords.length];
-        for (int i = 0; i < x_coords.length; i++) {
-            x_adjusted[i] = x + x_coords[i] * EnemyShip.SHIP_SCALE;
-            y_adjusted[i] = y + y_coords[i] * EnemyShip.SHIP_SCALE;
+    /**
+     * Adds the bounds of everything that is drawn this frame: each ship and bullet, and
+     * the extent of the swarm as a whole.
+     */
+    private void addBounds(DirtyRegion region, RenderFrame f) {
+        for (int i = 0; i < f.getShipCount(); i++) {
+            SpriteAtlas.Sprite sprite = i == 0 ? SpriteAtlas.Sprite.PLAYER : SpriteAtlas.Sprite.PLAYER_2;
+            int x = f.getShipX(i, alpha), y = f.getShipY(i);
+            region.add(x, y, x + atlas.getSpriteWidth(sprite), y + atlas.getSpriteHeight(sprite));
         }
-        gc.setFill(Color.GREEN);
-        gc.fillPolygon(x_adjusted, y_adjusted, x_adjusted.length);
+        for (int i = 0; i < f.getBulletCount(); i++) {
+            int x = f.getBulletX(i, alpha), y = f.getBulletY(i, alpha);
+            region.add(x, y, x + Bullet.BULLET_WIDTH, y + Bullet.BULLET_HEIGHT);
+        }
+        if (f.getAlienCount() > 0) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < f.getAlienCount(); i++) {
+                SpriteAtlas.Sprite sprite = SpriteAtlas.alien(f.getAlienType(i));
+                int x = f.getAlienX(i, alpha), y = f.getAlienY(i, alpha);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + atlas.getSpriteWidth(sprite));
+                maxY = Math.max(maxY, y + atlas.getSpriteHeight(sprite));
+            }
+            region.add(minX, minY, maxX, maxY);
+        }
+    }
 
-        // creating holes
-        gc.setFill(Color.BLACK);
-        gc.fillRect(x + 2 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 2, EnemyShip.SHIP_SCALE * 2, EnemyShip.SHIP_SCALE * 1);
-        gc.fillRect(x + 6 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 2, EnemyShip.SHIP_SCALE * 2, EnemyShip.SHIP_SCALE * 1);
-        gc.fillRect(x + 4 * EnemyShip.SHIP_SCALE, y + EnemyShip.SHIP_SCALE * 5, EnemyShip.SHIP_SCALE * 2, EnemyShip.SHIP_SCALE * 1);
+    /**
+     * Draws a sprite from the atlas with its top left corner at (x, y). The bullet
+     * sprite is a single pixel stretched to the bullet's size.
+     */
+    private void drawSprite(GraphicsContext gc, SpriteAtlas.Sprite sprite, double x, double y) {
+        if (atlasImage == null) {
+            atlasImage = new WritableImage(atlas.getWidth(), atlas.getHeight());
+            atlasImage.getPixelWriter().setPixels(0, 0, atlas.getWidth(), atlas.getHeight(),
+                    PixelFormat.getIntArgbInstance(), atlas.getPixels(), 0, atlas.getWidth());
+        }
+        int sx = atlas.getSpriteX(sprite);
+        if (sprite == SpriteAtlas.Sprite.BULLET) {
+            gc.drawImage(atlasImage, sx, 0, 1, 1, x, y, Bullet.BULLET_WIDTH, Bullet.BULLET_HEIGHT);
+        } else {
+            int w = atlas.getSpriteWidth(sprite), h = atlas.getSpriteHeight(sprite);
+            gc.drawImage(atlasImage, sx, 0, w, h, x, y, w, h);
+        }
+    }
+
+    private void drawEntities(GraphicsContext gc, RenderFrame f) {
+        for (int i = 0; i < f.getShipCount(); i++) {
+            SpriteAtlas.Sprite sprite = i == 0 ? SpriteAtlas.Sprite.PLAYER : SpriteAtlas.Sprite.PLAYER_2;
+            drawSprite(gc, sprite, f.getShipX(i, alpha), f.getShipY(i));
+        }
+        for (int i = 0; i < f.getBulletCount(); i++) {
+            drawSprite(gc, SpriteAtlas.Sprite.BULLET, f.getBulletX(i, alpha), f.getBulletY(i, alpha));
+        }
+        for (int i = 0; i < f.getAlienCount(); i++) {
+            drawSprite(gc, SpriteAtlas.alien(f.getAlienType(i)), f.getAlienX(i, alpha), f.getAlienY(i, alpha));
+        }
+        bunkerLayer.draw(gc);
     }
 
     public void paint() {
+        FrameEvent frame = null;
+        if (FRAME_EVENT.isEnabled()) {
+            frame = new FrameEvent();
+            frame.begin();
+        }
+        long paintStart = game != null ? game.getProfiler().start() : 0;
         GraphicsContext gc = this.canvas.getGraphicsContext2D();
-        gc.clearRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        RenderFrame f = null;
         if (game != null) {
-            gc.setFill(Color.BLACK);
-            gc.fillRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
-            gc.setFill(Color.GREEN);
-            gc.setTextAlign(TextAlignment.LEFT);
-            gc.setTextBaseline(VPos.TOP);
-            gc.setFont(new Font("Arial", 24));
-            gc.fillText("Lives: " + game.getLives(), 0, 0);
-            gc.setTextAlign(TextAlignment.RIGHT);
-            gc.fillText("Score: " + game.getPlayerScore(), SpaceInvadersGame.SCREEN_WIDTH, 0);
-            drawShape(gc, game.getShip());
-            for (Bullet bullet : game.getBullets()) {
-                drawShape(gc, bullet);
+            f = frames.getLatest();
+            alpha = game.getInterpolation();
+            boolean bunkersChanged = bunkerLayer.update(f);
+            boolean fullRepaint = f.getGeneration() != lastGeneration;
+            lastGeneration = f.getGeneration();
+            // what was drawn last frame has to be erased, what is drawn now has to be painted
+            DirtyRegion swap = previous;
+            previous = drawn;
+            drawn = swap;
+            drawn.clear();
+            addBounds(drawn, f);
+            dirty.clear();
+            dirty.addAll(previous);
+            dirty.addAll(drawn);
+            if (bunkersChanged) {
+                dirty.add(bunkerLayer.getX(), bunkerLayer.getY(),
+                        bunkerLayer.getX() + bunkerLayer.getWidth(), bunkerLayer.getY() + bunkerLayer.getHeight());
+            }
+            if (fullRepaint || dirty.getArea() > FULL_REPAINT_AREA * SpaceInvadersGame.SCREEN_WIDTH * SpaceInvadersGame.SCREEN_HEIGHT) {
+                gc.clearRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+                drawEntities(gc, f);
+            } else if (dirty.size() > 0) {
+                dirty.clearRects(gc);
+                gc.save();
+                dirty.clip(gc);
+                drawEntities(gc, f);
+                gc.restore();
+            }
+            if (showProfiler) {
+                updateProfilerLines();
             }
-            for (EnemyShip s : game.getEnemyShips()) {
-                drawShape(gc, s);
+            paintHud(f);
+            if (capture != null) {
+                capture.offer(f, alpha);
             }
-            for (Rectangle2D b: game.getBunkers()){
-                gc.setFill(Color.GREEN);
-                gc.fillRect(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+            game.getProfiler().lap(TickProfiler.PAINT, paintStart);
+            if (latencyProbe != null) {
+                latencyProbe.painted(f, System.nanoTime());
             }
-            if ((game.isPaused() || !game.isPlayerAlive()) && game.getLives() > 0) {
-                gc.setTextAlign(TextAlignment.CENTER);
-                gc.setTextBaseline(VPos.CENTER);
-                gc.setFont(new Font("Arial", 24));
-                gc.setFill(Color.GREEN);
-                gc.fillText("Press 'p' to continue ", SpaceInvadersGame.SCREEN_WIDTH/2, SpaceInvadersGame.SCREEN_HEIGHT/2);
-
-            } else if (!game.isPlayerAlive() && game.getLives() == 0) {
-                gc.setTextAlign(TextAlignment.CENTER);
-                gc.setTextBaseline(VPos.CENTER);
-                gc.setFont(new Font("Arial", 48));
-                gc.setFill(Color.GREEN);gc.fillText("Game over ", SpaceInvadersGame.SCREEN_WIDTH/2, SpaceInvadersGame.SCREEN_HEIGHT/2);
+        } else {
+            gc.clearRect(0, 0, SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        }
+        if (frame != null) {
+            frame.end();
+            if (frame.shouldCommit()) {
+                frame.tick = f != null ? f.getTick() : 0;
+                frame.commit();
             }
         }
     }
@@ -0,0 +1,67 @@
+package si.display;
+
+import si.model.Histogram;
+import si.model.RenderFrame;
+
+/**
+ * Measures input-to-photon latency: the time from a key press, as stamped by the
+ * listener, to the end of the first paint of a frame simulated with that press. The
+ * press time travels with the tick that consumed it into the {@link RenderFrame}, so
+ * the figure covers queueing, waiting for the tick, the tick itself, the hand-over
+ * to the renderer and painting. It stops when paint() returns; the display's own
+ * delay in showing the canvas comes on top.
+ * <p>
+ * Only presses are measured. A press shows at the earliest in the frame of the tick
+ * that consumed it, even if that tick does nothing visible with it, e.g. FIRE while
+ * the gun reloads.
+ */
+public class LatencyProbe {
+    private Histogram window = new Histogram(); // since the last report
+    private Histogram total = new Histogram();
+    private long lastSequence = -1;
+
+    /**
+     * Call when a screen has finished painting a frame; repeated paints of the same
+     * frame are only counted once.
+     */
+    public synchronized void painted(RenderFrame f, long now) {
+        if (f.getSequence() == lastSequence) {
+            return;
+        }
+        lastSequence = f.getSequence();
+        if (f.getInputTime() != 0) {
+            window.record(now - f.getInputTime());
+            total.record(now - f.getInputTime());
+        }
+    }
+
+    /**
+     * @return the latencies of the whole run, in nanoseconds
+     */
+    public synchronized Histogram getTotal() {
+        return total;
+    }
+
+    /**
+     * @return a one-line summary of the presses since the previous report, which starts
+     * a new window
+     */
+    public synchronized String report() {
+        String line = format(window);
+        window.reset();
+        return line;
+    }
+
+    /**
+     * @return a one-line summary of every press measured
+     */
+    public synchronized String reportTotal() {
+        return format(total);
+    }
+
+    private static String format(Histogram h) {
+        return String.format("input-to-photon: %d presses, p50 %.1fms p90 %.1fms p99 %.1fms max %.1fms",
+                h.getCount(), h.getPercentile(0.5) / 1e6, h.getPercentile(0.9) / 1e6,
+                h.getPercentile(0.99) / 1e6, h.getMax() / 1e6);
+    }
+}
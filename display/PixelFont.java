@@ -0,0 +1,100 @@
+package si.display;
+
+import java.util.Arrays;
+
+/**
+ * A 5x7 bitmap font for writing the hud straight into an ARGB framebuffer. Only the
+ * characters the game shows are defined; letters are drawn in upper case and any
+ * other character is left blank.
+ */
+public class PixelFont {
+    public static final int GLYPH_WIDTH = 5;
+    public static final int GLYPH_HEIGHT = 7;
+    private static final String CHARACTERS = "0123456789ACEGILMNOPRSTUV:";
+    // one string per glyph row, in the order of CHARACTERS
+    private static final String[][] GLYPHS = {
+            {".###.", "#...#", "#..##", "#.#.#", "##..#", "#...#", ".###."},
+            {"..#..", ".##..", "..#..", "..#..", "..#..", "..#..", ".###."},
+            {".###.", "#...#", "....#", "...#.", "..#..", ".#...", "#####"},
+            {"#####", "...#.", "..#..", "...#.", "....#", "#...#", ".###."},
+            {"...#.", "..##.", ".#.#.", "#..#.", "#####", "...#.", "...#."},
+            {"#####", "#....", "####.", "....#", "....#", "#...#", ".###."},
+            {"..##.", ".#...", "#....", "####.", "#...#", "#...#", ".###."},
+            {"#####", "....#", "...#.", "..#..", ".#...", ".#...", ".#..."},
+            {".###.", "#...#", "#...#", ".###.", "#...#", "#...#", ".###."},
+            {".###.", "#...#", "#...#", ".####", "....#", "...#.", ".##.."},
+            {".###.", "#...#", "#...#", "#####", "#...#", "#...#", "#...#"},
+            {".###.", "#...#", "#....", "#....", "#....", "#...#", ".###."},
+            {"#####", "#....", "#....", "####.", "#....", "#....", "#####"},
+            {".###.", "#...#", "#....", "#.###", "#...#", "#...#", ".####"},
+            {".###.", "..#..", "..#..", "..#..", "..#..", "..#..", ".###."},
+            {"#....", "#....", "#....", "#....", "#....", "#....", "#####"},
+            {"#...#", "##.##", "#.#.#", "#.#.#", "#...#", "#...#", "#...#"},
+            {"#...#", "#...#", "##..#", "#.#.#", "#..##", "#...#", "#...#"},
+            {".###.", "#...#", "#...#", "#...#", "#...#", "#...#", ".###."},
+            {"####.", "#...#", "#...#", "####.", "#....", "#....", "#...."},
+            {"####.", "#...#", "#...#", "####.", "#.#..", "#..#.", "#...#"},
+            {".####", "#....", "#....", ".###.", "....#", "....#", "####."},
+            {"#####", "..#..", "..#..", "..#..", "..#..", "..#..", "..#.."},
+            {"#...#", "#...#", "#...#", "#...#", "#...#", "#...#", ".###."},
+            {"#...#", "#...#", "#...#", "#...#", "#...#", ".#.#.", "..#.."},
+            {".....", ".##..", ".##..", ".....", ".##..", ".##..", "....."}
+    };
+    private static final int[][] BITS = new int[128][]; // row bits per character, bit 4 leftmost
+
+    static {
+        for (int i = 0; i < CHARACTERS.length(); i++) {
+            int[] rows = new int[GLYPH_HEIGHT];
+            for (int r = 0; r < GLYPH_HEIGHT; r++) {
+                for (int c = 0; c < GLYPH_WIDTH; c++) {
+                    if (GLYPHS[i][r].charAt(c) == '#') {
+                        rows[r] |= 1 << (GLYPH_WIDTH - 1 - c);
+                    }
+                }
+            }
+            BITS[CHARACTERS.charAt(i)] = rows;
+        }
+    }
+
+    private PixelFont() {
+    }
+
+    /**
+     * @return the width in pixels of the text at the given scale
+     */
+    public static int width(String text, int scale) {
+        return text.isEmpty() ? 0 : (text.length() * (GLYPH_WIDTH + 1) - 1) * scale;
+    }
+
+    /**
+     * Draws the text with its top left corner at (x, y), each font pixel becoming a
+     * scale by scale square. Pixels outside the framebuffer are skipped.
+     */
+    public static void draw(int[] pixels, int width, int height, String text, int x, int y, int scale, int argb) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = Character.toUpperCase(text.charAt(i));
+            int[] rows = ch < BITS.length ? BITS[ch] : null;
+            if (rows != null) {
+                int gx = x + i * (GLYPH_WIDTH + 1) * scale;
+                for (int r = 0; r < GLYPH_HEIGHT; r++) {
+                    for (int c = 0; c < GLYPH_WIDTH; c++) {
+                        if ((rows[r] >>> (GLYPH_WIDTH - 1 - c) & 1) != 0) {
+                            fill(pixels, width, height, gx + c * scale, y + r * scale, scale, scale, argb);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills a rectangle of the framebuffer, clipped to its bounds.
+     */
+    static void fill(int[] pixels, int width, int height, int x, int y, int w, int h, int argb) {
+        int x0 = Math.max(0, x), y0 = Math.max(0, y);
+        int x1 = Math.min(width, x + w), y1 = Math.min(height, y + h);
+        for (int py = y0; py < y1; py++) {
+            Arrays.fill(pixels, py * width + x0, py * width + Math.max(x0, x1), argb);
+        }
+    }
+}
@@ -4,57 +4,110 @@ import javafx.event.EventHandler;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import si.model.InputRecording;
+import si.model.InputSource;
+import si.model.KeyEventQueue;
 
-public class PlayerListener {
-    private boolean left;
-    private boolean right;
-    private boolean fire;
-    private boolean pause;
+/**
+ * Keyboard input. The key handlers run on the JavaFX thread and only queue timestamped
+ * presses and releases; the controls of each tick are rebuilt from the queue when the
+ * tick begins, so a tap shorter than a tick still fires.
+ */
+public class PlayerListener implements InputSource {
+    private static final int QUEUE_CAPACITY = 256;
+    private KeyEventQueue events = new KeyEventQueue(QUEUE_CAPACITY);
+    private int keys; // InputRecording bits of the current tick
+    private volatile boolean pause;
+    private Runnable profilerToggle;
 
     public void resetPause() {
         pause = false;
     }
 
+    public void beginTick(long until) {
+        keys = events.drain(until);
+    }
+
+    public long getInputTime() {
+        return events.getFirstPressTime();
+    }
+
     public boolean isPressingLeft() {
-        return left;
+        return (keys & InputRecording.LEFT) != 0;
     }
 
     public boolean isPressingRight() {
-        return right;
+        return (keys & InputRecording.RIGHT) != 0;
     }
 
     public boolean isPressingFire() {
-        return fire;
+        return (keys & InputRecording.FIRE) != 0;
     }
 
     public boolean hasPressedPause() {
         return pause;
     }
 
+    /**
+     * Queues a press of a control as if its key went down at the given time. Must be
+     * called on the JavaFX thread, which is the queue's only producer.
+     *
+     * @param key an InputRecording bit
+     */
+    public void press(int key, long nanos) {
+        events.press(key, nanos);
+    }
+
+    public void release(int key, long nanos) {
+        events.release(key, nanos);
+    }
+
+    public void pressPause() {
+        pause = true;
+    }
+
+    /**
+     * @param toggle run whenever F3 is pressed
+     */
+    public void setProfilerToggle(Runnable toggle) {
+        profilerToggle = toggle;
+    }
+
+    /**
+     * @return the InputRecording bit of a game control, 0 for other keys
+     */
+    private static int control(KeyCode code) {
+        if (code == KeyCode.LEFT) {
+            return InputRecording.LEFT;
+        } else if (code == KeyCode.RIGHT) {
+            return InputRecording.RIGHT;
+        } else if (code == KeyCode.SPACE) {
+            return InputRecording.FIRE;
+        }
+        return 0;
+    }
+
     public void setListeners(Scene s) {
         s.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent e) {
-                if (e.getCode() == KeyCode.LEFT) {
-                    left = true;
-                } else if (e.getCode() == KeyCode.RIGHT) {
-                    right = true;
-                } else if (e.getCode() == KeyCode.SPACE) {
-                    fire = true;
+                long now = System.nanoTime();
+                int key = control(e.getCode());
+                if (key != 0) {
+                    press(key, now);
                 } else if (e.getCode() == KeyCode.P) {
-                    pause = true;
+                    pressPause();
+                } else if (e.getCode() == KeyCode.F3 && profilerToggle != null) {
+                    profilerToggle.run();
                 }
             }
         });
         s.setOnKeyReleased(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent e) {
-                if (e.getCode() == KeyCode.LEFT) {
-                    left = false;
-                } else if (e.getCode() == KeyCode.RIGHT) {
-                    right = false;
-                } else if (e.getCode() == KeyCode.SPACE) {
-                    fire = false;
+                int key = control(e.getCode());
+                if (key != 0) {
+                    release(key, System.nanoTime());
                 }
             }
         });
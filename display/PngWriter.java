@@ -0,0 +1,77 @@
+package si.display;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes ARGB pixels as an 8-bit RGB PNG using only java.util.zip, so frames can be
+ * saved where neither JavaFX nor AWT is available. Alpha is dropped. The buffers are
+ * kept between calls, so writing a series of frames allocates little.
+ */
+public class PngWriter {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private CRC32 crc = new CRC32();
+    private ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private byte[] row = new byte[0];
+    private byte[] header = new byte[13];
+
+    public void write(int[] pixels, int width, int height, OutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // bits per sample
+        header[9] = 2; // colour type: RGB
+        header[10] = 0; // deflate
+        header[11] = 0; // adaptive filtering
+        header[12] = 0; // no interlace
+        chunk(out, "IHDR", header, header.length);
+
+        if (row.length < 1 + 3 * width) {
+            row = new byte[1 + 3 * width];
+        }
+        compressed.reset();
+        deflater.reset();
+        DeflaterOutputStream zip = new DeflaterOutputStream(compressed, deflater, 8192);
+        for (int y = 0; y < height; y++) {
+            row[0] = 0; // filter: none
+            for (int x = 0, i = y * width, j = 1; x < width; x++, i++) {
+                int p = pixels[i];
+                row[j++] = (byte) (p >>> 16);
+                row[j++] = (byte) (p >>> 8);
+                row[j++] = (byte) p;
+            }
+            zip.write(row, 0, 1 + 3 * width);
+        }
+        zip.finish();
+        byte[] data = compressed.toByteArray();
+        chunk(out, "IDAT", data, data.length);
+        chunk(out, "IEND", header, 0);
+        out.flush();
+    }
+
+    private void chunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] word = new byte[4];
+        putInt(word, 0, length);
+        out.write(word);
+        byte[] name = type.getBytes("US-ASCII");
+        out.write(name);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(name);
+        crc.update(data, 0, length);
+        putInt(word, 0, (int) crc.getValue());
+        out.write(word);
+    }
+
+    private static void putInt(byte[] b, int at, int v) {
+        b[at] = (byte) (v >>> 24);
+        b[at + 1] = (byte) (v >>> 16);
+        b[at + 2] = (byte) (v >>> 8);
+        b[at + 3] = (byte) v;
+    }
+}
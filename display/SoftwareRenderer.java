@@ -0,0 +1,128 @@
+package si.display;
+
+import si.model.Bullet;
+import si.model.RenderFrame;
+import si.model.SpaceInvadersGame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Draws a {@link RenderFrame} into an ARGB framebuffer at the game's logical
+ * resolution using plain Java, with sprites copied pixel by pixel from the
+ * {@link SpriteAtlas} and the hud written in a {@link PixelFont}. Needing no toolkit,
+ * it can render on machines without graphics acceleration, where the buffer is shown
+ * with a single image upload, and headlessly, where frames are saved as PNG files.
+ * The framebuffer is allocated once and redrawn in full each frame.
+ */
+public class SoftwareRenderer {
+    private static final int BLACK = 0xFF000000;
+    private static final int GREEN = 0xFF008000; // Color.GREEN
+    private static final int HUD_SCALE = 3;
+    private static final int GAME_OVER_SCALE = 6;
+
+    private int width = SpaceInvadersGame.SCREEN_WIDTH;
+    private int height = SpaceInvadersGame.SCREEN_HEIGHT;
+    private int[] pixels = new int[width * height];
+    private SpriteAtlas atlas = new SpriteAtlas();
+    private PngWriter png;
+
+    /**
+     * Redraws the whole framebuffer from the frame.
+     *
+     * @param alpha how far between the frame's previous and current positions to draw,
+     *              from 0 to 1
+     */
+    public void render(RenderFrame f, double alpha) {
+        Arrays.fill(pixels, BLACK);
+        for (int i = 0; i < f.getShipCount(); i++) {
+            blit(i == 0 ? SpriteAtlas.Sprite.PLAYER : SpriteAtlas.Sprite.PLAYER_2, f.getShipX(i, alpha), f.getShipY(i));
+        }
+        int bulletColour = atlas.getPixels()[atlas.getSpriteX(SpriteAtlas.Sprite.BULLET)];
+        for (int i = 0; i < f.getBulletCount(); i++) {
+            PixelFont.fill(pixels, width, height, f.getBulletX(i, alpha), f.getBulletY(i, alpha),
+                    Bullet.BULLET_WIDTH, Bullet.BULLET_HEIGHT, bulletColour);
+        }
+        for (int i = 0; i < f.getAlienCount(); i++) {
+            blit(SpriteAtlas.alien(f.getAlienType(i)), f.getAlienX(i, alpha), f.getAlienY(i, alpha));
+        }
+        int first = 0;
+        for (int i = 0; i < f.getBunkerCount(); i++) {
+            int size = f.getBunkerCellSize(i);
+            for (int r = 0; r < f.getBunkerRows(i); r++) {
+                long bits = f.getBunkerRowBits(first, r);
+                while (bits != 0) {
+                    int c = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    PixelFont.fill(pixels, width, height, f.getBunkerX(i) + c * size, f.getBunkerY(i) + r * size,
+                            size, size, GREEN);
+                }
+            }
+            first += f.getBunkerRows(i);
+        }
+        drawHud(f);
+    }
+
+    private void drawHud(RenderFrame f) {
+        PixelFont.draw(pixels, width, height, "Lives: " + f.getLives(), 0, 0, HUD_SCALE, GREEN);
+        String score = "Score: " + f.getScore();
+        PixelFont.draw(pixels, width, height, score, width - PixelFont.width(score, HUD_SCALE), 0, HUD_SCALE, GREEN);
+        if ((f.isPaused() || !f.isPlayerAlive()) && f.getLives() > 0) {
+            drawCentred("Press p to continue", HUD_SCALE);
+        } else if (!f.isPlayerAlive() && f.getLives() == 0) {
+            drawCentred("Game over", GAME_OVER_SCALE);
+        }
+    }
+
+    private void drawCentred(String text, int scale) {
+        PixelFont.draw(pixels, width, height, text, (width - PixelFont.width(text, scale)) / 2,
+                (height - PixelFont.GLYPH_HEIGHT * scale) / 2, scale, GREEN);
+    }
+
+    /**
+     * Copies a sprite's opaque pixels to the framebuffer, clipped to its bounds.
+     */
+    private void blit(SpriteAtlas.Sprite sprite, int x, int y) {
+        int[] src = atlas.getPixels();
+        int srcWidth = atlas.getWidth();
+        int sx = atlas.getSpriteX(sprite);
+        int w = atlas.getSpriteWidth(sprite), h = atlas.getSpriteHeight(sprite);
+        int c0 = Math.max(0, -x), c1 = Math.min(w, width - x);
+        int r0 = Math.max(0, -y), r1 = Math.min(h, height - y);
+        for (int r = r0; r < r1; r++) {
+            int s = r * srcWidth + sx, d = (y + r) * width + x;
+            for (int c = c0; c < c1; c++) {
+                int p = src[s + c];
+                if (p >>> 24 != 0) {
+                    pixels[d + c] = p;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the framebuffer in ARGB, row by row, {@link #getWidth()} per row
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Writes the framebuffer as it was last rendered as a PNG image.
+     */
+    public void writePng(OutputStream out) throws IOException {
+        if (png == null) {
+            png = new PngWriter();
+        }
+        png.write(pixels, width, height, out);
+    }
+}
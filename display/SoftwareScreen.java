@@ -0,0 +1,86 @@
+package si.display;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import jdk.jfr.EventType;
+import si.model.FrameExchange;
+import si.model.RenderFrame;
+import si.model.SpaceInvadersGame;
+import si.model.TickProfiler;
+import si.trace.FrameEvent;
+import ucd.comp2011j.engine.Screen;
+
+/**
+ * Game screen that draws with the {@link SoftwareRenderer} and shows the result with
+ * one pixel upload and one image draw per frame, for machines where JavaFX falls back
+ * to software rendering and many canvas calls are slow.
+ */
+public class SoftwareScreen implements Screen {
+    private static final long serialVersionUID = 4390318563357462805L;
+    private static final EventType FRAME_EVENT = EventType.getEventType(FrameEvent.class); // so idle paints allocate no event
+    private SpaceInvadersGame game;
+    private FrameExchange frames;
+    private Canvas canvas;
+    private WritableImage image;
+    private SoftwareRenderer renderer = new SoftwareRenderer();
+    private CaptureWriter capture;
+    private LatencyProbe latencyProbe;
+
+    public SoftwareScreen(SpaceInvadersGame game) {
+        this.game = game;
+        this.frames = game.getFrameExchange();
+        this.canvas = new Canvas(SpaceInvadersGame.SCREEN_WIDTH, SpaceInvadersGame.SCREEN_HEIGHT);
+        this.image = new WritableImage(renderer.getWidth(), renderer.getHeight());
+    }
+
+    /**
+     * Sends every frame painted from now on to the capture, or stops capturing if null.
+     */
+    public void setCapture(CaptureWriter capture) {
+        this.capture = capture;
+    }
+
+    /**
+     * Reports the end of every paint to the probe, or stops if null.
+     */
+    public void setLatencyProbe(LatencyProbe probe) {
+        latencyProbe = probe;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    public void paint() {
+        FrameEvent event = null;
+        if (FRAME_EVENT.isEnabled()) {
+            event = new FrameEvent();
+            event.begin();
+        }
+        long paintStart = game.getProfiler().start();
+        RenderFrame f = frames.getLatest();
+        double alpha = game.getInterpolation();
+        renderer.render(f, alpha);
+        // every pixel is opaque, so the buffer is already in premultiplied form
+        image.getPixelWriter().setPixels(0, 0, renderer.getWidth(), renderer.getHeight(),
+                PixelFormat.getIntArgbPreInstance(), renderer.getPixels(), 0, renderer.getWidth());
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.drawImage(image, 0, 0);
+        if (capture != null) {
+            capture.offer(f, alpha);
+        }
+        game.getProfiler().lap(TickProfiler.PAINT, paintStart);
+        if (latencyProbe != null) {
+            latencyProbe.painted(f, System.nanoTime());
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tick = f.getTick();
+                event.commit();
+            }
+        }
+    }
+}
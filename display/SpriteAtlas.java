@@ -0,0 +1,183 @@
+package si.display;
+
+import si.model.AlienType;
+import si.model.EnemyShip;
+import si.model.Player;
+
+/**
+ * Every sprite of the game rasterized once, side by side, into a single ARGB pixel
+ * array, so each entity is drawn with one image blit instead of polygon and rectangle
+ * fills. The shapes are given on a grid of unit cells and scaled up to the size each
+ * entity is drawn at. The atlas is plain pixel data and needs no toolkit, so the
+ * canvas screen and the software renderer can both draw from it.
+ */
+public class SpriteAtlas {
+    public enum Sprite {
+        ALIEN_A, ALIEN_B, ALIEN_C, PLAYER, PLAYER_2, BULLET
+    }
+
+    private static final int GREEN = 0xFF008000; // Color.GREEN
+    private static final int CYAN = 0xFF00FFFF; // Color.CYAN
+    private static final int BLACK = 0xFF000000;
+    private static final int GAP = 1; // transparent column between sprites
+    // unit cell values while rasterizing
+    private static final int EMPTY = 0;
+    private static final int BODY = 1;
+    private static final int HOLE = 2;
+
+    private int[] pixels;
+    private int width;
+    private int height;
+    private int[] spriteX = new int[Sprite.values().length];
+    private int[] spriteWidth = new int[Sprite.values().length];
+    private int[] spriteHeight = new int[Sprite.values().length];
+
+    public SpriteAtlas() {
+        int[][] sprites = new int[Sprite.values().length][];
+        put(sprites, Sprite.ALIEN_A, alienA(), 9, 7, EnemyShip.SHIP_SCALE, GREEN);
+        put(sprites, Sprite.ALIEN_B, alienB(), 8, 8, EnemyShip.SHIP_SCALE, GREEN);
+        put(sprites, Sprite.ALIEN_C, alienC(), 10, 8, EnemyShip.SHIP_SCALE, GREEN);
+        put(sprites, Sprite.PLAYER, player(), 7, 4, Player.SHIP_SCALE, GREEN);
+        put(sprites, Sprite.PLAYER_2, player(), 7, 4, Player.SHIP_SCALE, CYAN);
+        put(sprites, Sprite.BULLET, new int[]{BODY}, 1, 1, 1, GREEN);
+
+        for (int i = 0; i < sprites.length; i++) {
+            spriteX[i] = width;
+            width += spriteWidth[i] + GAP;
+            height = Math.max(height, spriteHeight[i]);
+        }
+        pixels = new int[width * height];
+        for (int i = 0; i < sprites.length; i++) {
+            for (int y = 0; y < spriteHeight[i]; y++) {
+                System.arraycopy(sprites[i], y * spriteWidth[i], pixels, y * width + spriteX[i], spriteWidth[i]);
+            }
+        }
+    }
+
+    public static Sprite alien(AlienType type) {
+        if (type == AlienType.A) {
+            return Sprite.ALIEN_A;
+        } else if (type == AlienType.B) {
+            return Sprite.ALIEN_B;
+        }
+        return Sprite.ALIEN_C;
+    }
+
+    /**
+     * @return the atlas pixels in ARGB, row by row, {@link #getWidth()} per row
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSpriteX(Sprite sprite) {
+        return spriteX[sprite.ordinal()];
+    }
+
+    public int getSpriteWidth(Sprite sprite) {
+        return spriteWidth[sprite.ordinal()];
+    }
+
+    public int getSpriteHeight(Sprite sprite) {
+        return spriteHeight[sprite.ordinal()];
+    }
+
+    private static int[] alienA() {
+        int[] cells = polygon(9, 7,
+                new int[]{0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 8, 8, 7, 7, 6, 6, 5, 5, 4, 4, 3, 3, 2, 2, 1, 1, 0},
+                new int[]{7, 4, 4, 3, 3, 2, 2, 1, 1, 2, 2, 1, 1, 2, 2, 3, 3, 4, 4, 7, 7, 5, 5, 7, 7, 6, 6, 7, 7, 6, 6, 7, 7, 5, 5, 7, 7});
+        // antennae
+        rect(cells, 9, 2, 0, 1, 1, BODY);
+        rect(cells, 9, 6, 0, 1, 1, BODY);
+        // eye holes
+        rect(cells, 9, 3, 3, 1, 1, HOLE);
+        rect(cells, 9, 5, 3, 1, 1, HOLE);
+        return cells;
+    }
+
+    private static int[] alienB() {
+        int[] xs = {3, 2, 1, 0, 3, 6, 0, 2, 5, 1, 3, 6, 0, 2, 5, 7};
+        int[] ys = {0, 1, 2, 3, 3, 3, 4, 5, 5, 6, 6, 6, 7, 7, 7, 7};
+        int[] widths = {2, 4, 6, 2, 2, 2, 8, 1, 1, 1, 2, 1, 1, 1, 1, 1};
+        int[] cells = new int[8 * 8];
+        for (int i = 0; i < xs.length; i++) {
+            rect(cells, 8, xs[i], ys[i], widths[i], 1, BODY);
+        }
+        return cells;
+    }
+
+    private static int[] alienC() {
+        int[] cells = polygon(10, 8,
+                new int[]{3, 7, 7, 9, 9, 10, 10, 8, 8, 9, 9, 10, 10, 8, 8, 7, 7, 6, 6, 4, 4, 3, 3, 2, 2, 0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 3, 3},
+                new int[]{0, 0, 1, 1, 2, 2, 5, 5, 6, 6, 7, 7, 8, 8, 7, 7, 6, 6, 7, 7, 6, 6, 7, 7, 8, 8, 7, 7, 6, 6, 5, 5, 2, 2, 1, 1, 0});
+        rect(cells, 10, 2, 2, 2, 1, HOLE);
+        rect(cells, 10, 6, 2, 2, 1, HOLE);
+        rect(cells, 10, 4, 5, 2, 1, HOLE);
+        return cells;
+    }
+
+    private static int[] player() {
+        return polygon(7, 4,
+                new int[]{0, 2, 2, 3, 3, 4, 4, 5, 5, 7, 7, 0, 0},
+                new int[]{2, 2, 1, 1, 0, 0, 1, 1, 2, 2, 4, 4, 2});
+    }
+
+    /**
+     * Marks the unit cells whose centres lie inside the polygon. The outlines are made
+     * of horizontal and vertical edges on the cell grid, so this covers exactly the
+     * area a polygon fill would.
+     */
+    private static int[] polygon(int w, int h, int[] xs, int[] ys) {
+        int[] cells = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                double px = x + 0.5, py = y + 0.5;
+                boolean inside = false;
+                for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                    if ((ys[i] > py) != (ys[j] > py)
+                            && px < xs[j] + (double) (xs[i] - xs[j]) * (py - ys[j]) / (ys[i] - ys[j])) {
+                        inside = !inside;
+                    }
+                }
+                cells[y * w + x] = inside ? BODY : EMPTY;
+            }
+        }
+        return cells;
+    }
+
+    private static void rect(int[] cells, int w, int x, int y, int rw, int rh, int value) {
+        for (int r = y; r < y + rh; r++) {
+            for (int c = x; c < x + rw; c++) {
+                cells[r * w + c] = value;
+            }
+        }
+    }
+
+    /**
+     * Scales a sprite's unit cells up to pixels and records its size.
+     */
+    private void put(int[][] sprites, Sprite sprite, int[] cells, int w, int h, int scale, int colour) {
+        sprites[sprite.ordinal()] = scale(cells, w, h, scale, colour);
+        spriteWidth[sprite.ordinal()] = w * scale;
+        spriteHeight[sprite.ordinal()] = h * scale;
+    }
+
+    private static int[] scale(int[] cells, int w, int h, int scale, int colour) {
+        int[] out = new int[w * scale * h * scale];
+        for (int y = 0; y < h * scale; y++) {
+            for (int x = 0; x < w * scale; x++) {
+                int cell = cells[(y / scale) * w + x / scale];
+                out[y * w * scale + x] = cell == BODY ? colour : cell == HOLE ? BLACK : 0;
+            }
+        }
+        return out;
+    }
+}
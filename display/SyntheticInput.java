@@ -0,0 +1,53 @@
+package si.display;
+
+import javafx.animation.AnimationTimer;
+import si.model.GameRandom;
+import si.model.InputRecording;
+import si.model.SpaceInvadersGame;
+
+/**
+ * Plays the game unattended by pressing keys the way a player would, for measuring
+ * with a {@link LatencyProbe} without anyone at the keyboard. It runs on the JavaFX
+ * thread like real key events, taps and holds LEFT, RIGHT and SPACE for random
+ * lengths of time, and presses P whenever the game waits to be resumed.
+ */
+public class SyntheticInput extends AnimationTimer {
+    private static final int MIN_GAP_MS = 20; // between key changes
+    private static final int MAX_GAP_MS = 250;
+    private static final int[] KEYS = {InputRecording.LEFT, InputRecording.RIGHT, InputRecording.FIRE};
+    private PlayerListener listener;
+    private SpaceInvadersGame game;
+    private GameRandom rand;
+    private int down; // keys this driver holds
+    private long nextChange;
+
+    public SyntheticInput(PlayerListener listener, SpaceInvadersGame game, long seed) {
+        this.listener = listener;
+        this.game = game;
+        this.rand = new GameRandom(seed);
+    }
+
+    @Override
+    public void handle(long pulse) {
+        // stamped like real key events rather than with the pulse time
+        long now = System.nanoTime();
+        if (game.isPaused() || !game.isPlayerAlive()) {
+            if (!listener.hasPressedPause()) {
+                listener.pressPause();
+            }
+            return;
+        }
+        if (now < nextChange) {
+            return;
+        }
+        int key = KEYS[rand.nextInt(KEYS.length)];
+        if ((down & key) != 0) {
+            listener.release(key, now);
+            down &= ~key;
+        } else {
+            listener.press(key, now);
+            down |= key;
+        }
+        nextChange = now + (MIN_GAP_MS + rand.nextInt(MAX_GAP_MS - MIN_GAP_MS)) * 1000000L;
+    }
+}
@@ -1,34 +1,40 @@
 package si.model;
 
 
-import javafx.geometry.Rectangle2D;
+import java.nio.ByteBuffer;
 
 public class Bullet implements Movable, Hittable {
     private int x, y;
-    private boolean direction; // True for up, false for down
+    private int prevX, prevY; // position before the last move, for swept tests
+    private int speed; // pixels per tick, negative moves up the screen
     private boolean alive = true;
-    private Rectangle2D hitBox;
-    private String name;
-    private static int bulletCounter = 0;
     public static final int BULLET_HEIGHT = 8;
     public static final int BULLET_WIDTH = 4;
-    private static final int BULLET_SPEED = 5;
+    public static final int BULLET_SPEED = 5;
+    static final int SNAPSHOT_BYTES = 11;
 
-    public Bullet(int x, int y, boolean direction, String name) {
-        this.direction = direction;
+    public Bullet(int x, int y, boolean direction) {
+        spawn(x, y, direction ? -BULLET_SPEED : BULLET_SPEED);
+    }
+
+    /**
+     * Reinitialises this bullet so pooled instances can be reused without allocating.
+     *
+     * @param speed pixels per tick, negative moves up the screen
+     */
+    void spawn(int x, int y, int speed) {
         this.x = x;
         this.y = y;
-        this.name = name + " " + bulletCounter++;
-        hitBox = new Rectangle2D(x, y, BULLET_WIDTH, BULLET_HEIGHT);
+        this.prevX = x;
+        this.prevY = y;
+        this.speed = speed;
+        this.alive = true;
     }
 
     public void move() {
-        if (direction) {
-            y -= BULLET_SPEED;
-        } else {
-            y += BULLET_SPEED;
-        }
-        hitBox = new Rectangle2D(x, y, BULLET_WIDTH, BULLET_HEIGHT);
+        prevX = x;
+        prevY = y;
+        y += speed;
     }
 
     public int getX() {
@@ -39,8 +45,72 @@ public class Bullet implements Movable, Hittable {
         return y;
     }
 
+    public int getRenderX(double alpha) {
+        return (int) Math.round(prevX + (x - prevX) * alpha);
+    }
+
+    public int getRenderY(double alpha) {
+        return (int) Math.round(prevY + (y - prevY) * alpha);
+    }
+
+    public int getPrevX() {
+        return prevX;
+    }
+
+    public int getPrevY() {
+        return prevY;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return the box covering every position the bullet passed through in its last move
+     */
+    public double getSweptMinY() {
+        return Math.min(prevY, y);
+    }
+
+    public double getSweptMaxY() {
+        return Math.max(prevY, y) + BULLET_HEIGHT;
+    }
+
+    public double getSweptMinX() {
+        return Math.min(prevX, x);
+    }
+
+    public double getSweptMaxX() {
+        return Math.max(prevX, x) + BULLET_WIDTH;
+    }
+
+    public boolean isUpward() {
+        return speed < 0;
+    }
+
+    public boolean isOnScreen() {
+        return x + BULLET_WIDTH > 0 && x < SpaceInvadersGame.SCREEN_WIDTH
+                && y + BULLET_HEIGHT > 0 && y < SpaceInvadersGame.SCREEN_HEIGHT;
+    }
+
+    public double getMinX() {
+        return x;
+    }
+
+    public double getMinY() {
+        return y;
+    }
+
+    public double getMaxX() {
+        return x + BULLET_WIDTH;
+    }
+
+    public double getMaxY() {
+        return y + BULLET_HEIGHT;
+    }
+
     public boolean isHit(Bullet b) {
-        boolean hit = hitBox.intersects(b.getHitBox());
+        boolean hit = overlaps(b);
         if (hit) {
             alive = false;
             b.alive = false;
@@ -60,13 +130,26 @@ public class Bullet implements Movable, Hittable {
         return false;
     }
 
-    @Override
-    public Rectangle2D getHitBox() {
-        return hitBox;
-    }
-
     public void destroy() {
         alive = false;
     }
 
+    void save(ByteBuffer out) {
+        out.putShort((short) x);
+        out.putShort((short) y);
+        out.putShort((short) prevX);
+        out.putShort((short) prevY);
+        out.putShort((short) speed);
+        out.put((byte) (alive ? 1 : 0));
+    }
+
+    void restore(ByteBuffer in) {
+        x = in.getShort();
+        y = in.getShort();
+        prevX = in.getShort();
+        prevY = in.getShort();
+        speed = in.getShort();
+        alive = in.get() != 0;
+    }
+
 }
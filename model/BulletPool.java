@@ -0,0 +1,116 @@
+package si.model;
+
+import jdk.jfr.EventType;
+import si.trace.BulletSpawnEvent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-capacity store of reusable bullets. Live bullets are kept packed at the
+ * front of the array and removed by swapping the last live bullet into the hole,
+ * so firing and expiring bullets never allocates.
+ */
+public class BulletPool {
+    // checked before creating a spawn event, so firing allocates nothing while no recording wants it
+    private static final EventType SPAWN_EVENT = EventType.getEventType(BulletSpawnEvent.class);
+    private Bullet[] bullets;
+    private int size;
+
+    public BulletPool(int capacity) {
+        bullets = new Bullet[capacity];
+        for (int i = 0; i < capacity; i++) {
+            bullets[i] = new Bullet(0, 0, true);
+        }
+    }
+
+    /**
+     * @return a live bullet at the given position, or null if the pool is full
+     */
+    public Bullet acquire(int x, int y, boolean direction) {
+        return acquire(x, y, direction ? -Bullet.BULLET_SPEED : Bullet.BULLET_SPEED);
+    }
+
+    /**
+     * @param speed pixels per tick, negative moves up the screen
+     * @return a live bullet at the given position, or null if the pool is full
+     */
+    public Bullet acquire(int x, int y, int speed) {
+        if (size == bullets.length) {
+            return null;
+        }
+        Bullet b = bullets[size++];
+        b.spawn(x, y, speed);
+        if (SPAWN_EVENT.isEnabled()) {
+            BulletSpawnEvent event = new BulletSpawnEvent();
+            if (event.shouldCommit()) {
+                event.x = x;
+                event.y = y;
+                event.speed = speed;
+                event.commit();
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Removes the bullet at index i. The last live bullet takes its place, so callers
+     * iterating by index must revisit i afterwards.
+     */
+    public void release(int i) {
+        size--;
+        Bullet b = bullets[i];
+        bullets[i] = bullets[size];
+        bullets[size] = b;
+    }
+
+    public Bullet get(int i) {
+        return bullets[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bullets.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the most bytes {@link #save(ByteBuffer)} can write
+     */
+    int snapshotSize() {
+        return 2 + bullets.length * Bullet.SNAPSHOT_BYTES;
+    }
+
+    /**
+     * Writes the live bullets only; free slots carry no state.
+     */
+    void save(ByteBuffer out) {
+        out.putShort((short) size);
+        for (int i = 0; i < size; i++) {
+            bullets[i].save(out);
+        }
+    }
+
+    /**
+     * Reads bullets written by {@link #save(ByteBuffer)}. The count is checked before
+     * any bullet is overwritten, so a snapshot that does not fit leaves the pool as it was.
+     */
+    void restore(ByteBuffer in) {
+        int count = in.getShort();
+        if (count < 0 || count > bullets.length) {
+            throw new IllegalArgumentException("Snapshot holds " + count + " bullets, pool holds " + bullets.length);
+        }
+        if (in.remaining() < count * Bullet.SNAPSHOT_BYTES) {
+            throw new IllegalArgumentException("Snapshot ends inside its " + count + " bullets");
+        }
+        for (int i = 0; i < count; i++) {
+            bullets[i].restore(in);
+        }
+        size = count;
+    }
+}
@@ -1,103 +1,242 @@
 package si.model;
 //障碍物
-import javafx.geometry.Rectangle2D;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Shape;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.nio.ByteBuffer;
 
 public class Bunker implements Hittable {
     private static final int BRICK_SCALE = 5;
-    private ArrayList<Brick> bricks;
-    private Rectangle2D hitBox;
+    public static final int DEFAULT_CELL_SIZE = BRICK_SCALE;
+    public static final int MAX_DAMAGE_RADIUS = (Long.SIZE - 1) / 2; // the widest stamp row must fit in a long
+    private static final int WIDTH = 10 * BRICK_SCALE;
+    private static final int HEIGHT = 7 * BRICK_SCALE;
+    // Bunker outline in BRICK_SCALE units, one string per row
+    private static final String[] SHAPE = {
+            "..######..",
+            ".########.",
+            "##########",
+            "####..####",
+            "###....###",
+            "###....###",
+            "###....###"
+    };
+    private long[] cells; // one bit per cell, bit 0 is the leftmost column
+    private long[] stamp; // damage pattern, row 0 is centred on the impact row
+    private int stampRadius;
+    private int cellSize;
+    private int cols;
+    private int rows;
+    private int liveCells;
+    // result of the last firstCellHit search
+    private int impactCol, impactRow;
+    private double impactTime;
     private int x, y;
 
-    public List<Rectangle2D> getBricks() {
-        List<Rectangle2D> brickShapes = new ArrayList<>();
-        for(Brick b: bricks){
-            brickShapes.add(b.hitBox);
-        }
-        return brickShapes;
+    public Bunker(int x1, int y1) {
+        this(x1, y1, DEFAULT_CELL_SIZE);
     }
 
-    private class Brick implements Hittable {
-        private boolean destroyed;
-        private Rectangle2D hitBox;
-
-        public Brick(int x, int y) {
-            destroyed = false;
-            hitBox = new Rectangle2D(x, y, BRICK_SCALE, BRICK_SCALE);
+    /**
+     * @param cellSize size in pixels of one destructible cell, from 1 up to the bunker's
+     *                 height; an edge narrower than a whole cell is left out
+     */
+    public Bunker(int x1, int y1, int cellSize) {
+        if (cellSize < 1 || cellSize > HEIGHT) {
+            throw new IllegalArgumentException("Unsupported bunker cell size " + cellSize);
+        }
+        this.x = x1;
+        this.y = y1;
+        this.cellSize = cellSize;
+        cols = WIDTH / cellSize;
+        rows = HEIGHT / cellSize;
+        cells = new long[rows];
+        for (int r = 0; r < rows; r++) {
+            String line = SHAPE[r * cellSize / BRICK_SCALE];
+            for (int c = 0; c < cols; c++) {
+                if (line.charAt(c * cellSize / BRICK_SCALE) == '#') {
+                    cells[r] |= 1L << c;
+                }
+            }
+            liveCells += Long.bitCount(cells[r]);
         }
+        if (liveCells == 0) {
+            throw new IllegalArgumentException("Bunker cell size " + cellSize + " leaves no cells");
+        }
+        setDamageRadius(0);
+    }
 
-        public boolean isAlive() {
-            return destroyed;
+    /**
+     * Sets how many cells around the impact point a hit erodes, as a diamond of the
+     * given radius. A radius of 0 removes only the cell that was hit.
+     *
+     * @param radius from 0 up to {@link #MAX_DAMAGE_RADIUS}
+     */
+    public void setDamageRadius(int radius) {
+        if (radius < 0 || radius > MAX_DAMAGE_RADIUS) {
+            throw new IllegalArgumentException("Unsupported bunker damage radius " + radius);
         }
+        stampRadius = radius;
+        stamp = new long[2 * radius + 1];
+        for (int dy = -radius; dy <= radius; dy++) {
+            int span = radius - Math.abs(dy);
+            // bits centred on bit 'radius', shifted into place when the stamp is applied
+            stamp[dy + radius] = spanMask(radius - span, radius + span);
+        }
+    }
 
-        public int getPoints() {
-            return 0;
+    public boolean isHit(Bullet b) {
+        if (firstCellHit(b)) {
+            erode(impactCol, impactRow);
+            return true;
         }
+        return false;
+    }
 
-        public boolean isPlayer() {
+    public double timeOfImpact(Bullet b) {
+        firstCellHit(b);
+        return impactTime;
+    }
+
+    /**
+     * Finds the first intact cell the bullet reaches along its last move. Only the
+     * cells under the bullet's swept box are visited.
+     */
+    private boolean firstCellHit(Bullet b) {
+        impactTime = Collision.MISS;
+        int c0 = Math.max(0, (int) Math.floor((b.getSweptMinX() - x) / cellSize));
+        int c1 = Math.min(cols - 1, (int) Math.ceil((b.getSweptMaxX() - x) / cellSize) - 1);
+        int r0 = Math.max(0, (int) Math.floor((b.getSweptMinY() - y) / cellSize));
+        int r1 = Math.min(rows - 1, (int) Math.ceil((b.getSweptMaxY() - y) / cellSize) - 1);
+        if (c0 > c1 || r0 > r1) {
             return false;
         }
-
-        public boolean isHit(Bullet b) {
-            boolean hit = hitBox.intersects(b.getHitBox());
-            if (hit) {
-                destroyed = true;
+        long mask = spanMask(c0, c1);
+        for (int r = r0; r <= r1; r++) {
+            long bits = cells[r] & mask;
+            while (bits != 0) {
+                int c = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int cx = x + c * cellSize, cy = y + r * cellSize;
+                double t = Collision.sweep(b, cx, cy, cx + cellSize, cy + cellSize);
+                if (t < impactTime) {
+                    impactTime = t;
+                    impactCol = c;
+                    impactRow = r;
+                }
             }
-            return hit;
         }
-        public Rectangle2D getHitBox() {
-            return new Rectangle2D(hitBox.getMinX(), hitBox.getMinY(), hitBox.getWidth(), hitBox.getHeight());
+        return impactTime != Collision.MISS;
+    }
+
+    private void erode(int col, int row) {
+        for (int i = 0; i < stamp.length; i++) {
+            int r = row + i - stampRadius;
+            if (r >= 0 && r < rows) {
+                int shift = col - stampRadius;
+                long m = shift >= 0 ? stamp[i] << shift : stamp[i] >>> -shift;
+                long removed = cells[r] & m;
+                cells[r] &= ~m;
+                liveCells -= Long.bitCount(removed);
+            }
         }
     }
 
+    private static long spanMask(int from, int to) {
+        long upper = to >= 63 ? -1L : (1L << (to + 1)) - 1;
+        return upper & (-1L << from);
+    }
 
-    public Bunker(int x1, int y1) {
-        this.x = x1;
-        this.y = y1;
-        hitBox = new Rectangle2D(x,y, 10*BRICK_SCALE, 7 * BRICK_SCALE);
-        bricks = new ArrayList<Brick>();
+    public double getMinX() {
+        return x;
+    }
 
-        for (int i = 0; i < 6; i++) { // Top row
-            bricks.add(new Brick(x + 2 * BRICK_SCALE + i * BRICK_SCALE, y + 0 * BRICK_SCALE));
-        }
-        for (int i = 0; i < 8; i++) { // Second row
-            bricks.add(new Brick(x + 1 * BRICK_SCALE + i * BRICK_SCALE, y + 1 * BRICK_SCALE));
-        }
-        for (int i = 0; i < 10; i++) { // Third row
-            bricks.add(new Brick(x + 0 * BRICK_SCALE + i * BRICK_SCALE, y + 2 * BRICK_SCALE));
-        }
-        for (int i = 0; i < 4; i++) { // fourth row
-            bricks.add(new Brick(x + 0 * BRICK_SCALE + i * BRICK_SCALE, y + 3 * BRICK_SCALE));
-            bricks.add(new Brick(x + 6 * BRICK_SCALE + i * BRICK_SCALE, y + 3 * BRICK_SCALE));
-        }
+    public double getMinY() {
+        return y;
+    }
+
+    public double getMaxX() {
+        return x + WIDTH;
+    }
+
+    public double getMaxY() {
+        return y + HEIGHT;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getDamageRadius() {
+        return stampRadius;
+    }
+
+    public int getColumns() {
+        return cols;
+    }
 
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 4; j++) {
-                bricks.add(new Brick(x + 0 * BRICK_SCALE + i * BRICK_SCALE, y + (j + 3) * BRICK_SCALE));
-                bricks.add(new Brick(x + 7 * BRICK_SCALE + i * BRICK_SCALE, y + (j + 3) * BRICK_SCALE));
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the occupancy bits of a row, bit 0 being the leftmost column
+     */
+    public long getRowBits(int row) {
+        return cells[row];
+    }
+
+    /**
+     * @return the most bytes {@link #save(ByteBuffer)} can write
+     */
+    int snapshotSize() {
+        return rows * bytesPerRow();
+    }
+
+    /**
+     * Writes the occupancy of each row in as few bytes as the column count needs.
+     */
+    void save(ByteBuffer out) {
+        int n = bytesPerRow();
+        for (int r = 0; r < rows; r++) {
+            long bits = cells[r];
+            for (int i = 0; i < n; i++) {
+                out.put((byte) (bits >>> (8 * i)));
             }
         }
     }
-    public boolean isHit(Bullet b) {
-        boolean hit = false;
-        Brick remove = null;
-        for (Brick br : bricks) {
-            if (br.isHit(b)) {
-                remove = br;
-                hit = true;
+
+    void restore(ByteBuffer in) {
+        int n = bytesPerRow();
+        liveCells = 0;
+        for (int r = 0; r < rows; r++) {
+            long bits = 0;
+            for (int i = 0; i < n; i++) {
+                bits |= (in.get() & 0xFFL) << (8 * i);
             }
+            cells[r] = bits;
+            liveCells += Long.bitCount(bits);
         }
-        bricks.remove(remove);
-        return hit;
+    }
+
+    /**
+     * @return how many cells are still intact
+     */
+    int getLiveCells() {
+        return liveCells;
+    }
+
+    private int bytesPerRow() {
+        return (cols + 7) / 8;
     }
 
     public boolean isAlive() {
-        return bricks.size() == 0;
+        return liveCells == 0;
     }
 
     public int getPoints() {
@@ -108,8 +247,4 @@ public class Bunker implements Hittable {
         return false;
     }
 
-    public Rectangle2D getHitBox() {
-        return hitBox;
-    }
-
 }
@@ -0,0 +1,61 @@
+package si.model;
+
+/**
+ * Swept collision tests for bullets. A bullet moves along a straight segment each
+ * tick, so instead of only testing where it ends up we find the first moment along
+ * that segment at which its box starts to overlap a target box.
+ */
+public final class Collision {
+    /** Returned when the swept box never overlaps the target during the move. */
+    public static final double MISS = Double.POSITIVE_INFINITY;
+
+    private Collision() {
+    }
+
+    /**
+     * Sweeps a w by h box whose top-left corner moves from (x0, y0) to (x1, y1)
+     * against a static box. The target is grown by the moving box's size so the
+     * problem becomes a segment-versus-box slab test.
+     *
+     * @return the fraction of the move in [0, 1] at which the boxes first overlap,
+     * or {@link #MISS}
+     */
+    public static double sweep(double x0, double y0, double x1, double y1, double w, double h,
+                               double minX, double minY, double maxX, double maxY) {
+        double tEnter = 0;
+        double tExit = 1;
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        // x slab: the corner must lie strictly inside (minX - w, maxX)
+        if (dx == 0) {
+            if (x0 <= minX - w || x0 >= maxX) {
+                return MISS;
+            }
+        } else {
+            double t1 = (minX - w - x0) / dx;
+            double t2 = (maxX - x0) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y0 <= minY - h || y0 >= maxY) {
+                return MISS;
+            }
+        } else {
+            double t1 = (minY - h - y0) / dy;
+            double t2 = (maxY - y0) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        // touching for an instant is not an overlap, matching Hittable.overlaps
+        return tEnter < tExit ? tEnter : MISS;
+    }
+
+    /**
+     * Sweeps a bullet over the move it made this tick against a static box.
+     */
+    public static double sweep(Bullet b, double minX, double minY, double maxX, double maxY) {
+        return sweep(b.getPrevX(), b.getPrevY(), b.getX(), b.getY(), Bullet.BULLET_WIDTH, Bullet.BULLET_HEIGHT,
+                minX, minY, maxX, maxY);
+    }
+}
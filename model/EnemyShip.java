@@ -1,24 +1,23 @@
 package si.model;
 //敌人飞船
-import javafx.geometry.Rectangle2D;
-
-import java.util.Random;
 
 public class EnemyShip implements Hittable {
-    private String name;
     private boolean alive;
-    private double x, y;
+    private Swarm swarm;
+    private int offsetX, offsetY; // position relative to the swarm origin
+    private int row, col;
     private AlienType type;
-    private Random rand;
     private int height;
     public static final int SHIP_SCALE = 2;
 
-    public EnemyShip(int x, int y, AlienType type) {
-        this.x = x;
-        this.y = y;
+    public EnemyShip(Swarm swarm, int row, int col, int offsetX, int offsetY, AlienType type) {
+        this.swarm = swarm;
+        this.row = row;
+        this.col = col;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
         this.type = type;
         this.height = type.getHeight();
-        this.rand = new Random(x * 100 + y);
         this.alive = true;
     }
 
@@ -27,7 +26,7 @@ public class EnemyShip implements Hittable {
     }
 
     public boolean isHit(Bullet b) {
-        boolean hit = getHitBox().intersects(b.getHitBox());
+        boolean hit = timeOfImpact(b) != Collision.MISS;
         if (hit) {
             alive = false;
         }
@@ -38,6 +37,10 @@ public class EnemyShip implements Hittable {
         return alive;
     }
 
+    void setAlive(boolean alive) {
+        this.alive = alive;
+    }
+
     public int getPoints() {
         return type.getScore();
     }
@@ -46,31 +49,62 @@ public class EnemyShip implements Hittable {
         return false;
     }
 
-    public void move(double cX, double cY) {
-        x += cX;
-        y += cY;
-    }
-
-    public Bullet fire() {
+    public Bullet fire(BulletPool pool, GameRandom rand) {
         Bullet bul = null;
-        if (rand.nextInt() % 200 == 0) {
-            int a = ((int) x + (type.getWidth() * SHIP_SCALE) / 2);
-            int b = (int) y + (SHIP_SCALE * height);
-            bul = new Bullet(a, b, false, name);
+        if (rand.nextInt(200) == 0) {
+            int a = (getX() + (type.getWidth() * SHIP_SCALE) / 2);
+            int b = getY() + (SHIP_SCALE * height);
+            bul = pool.acquire(a, b, false);
         }
         return bul;
     }
 
-    public Rectangle2D getHitBox() {
-        return new Rectangle2D(x, y, SHIP_SCALE * type.getWidth(), SHIP_SCALE * type.getHeight());
+    public double getMinX() {
+        return swarm.getX() + offsetX;
+    }
+
+    public double getMinY() {
+        return swarm.getY() + offsetY;
+    }
+
+    public double getMaxX() {
+        return getMinX() + SHIP_SCALE * type.getWidth();
+    }
+
+    public double getMaxY() {
+        return getMinY() + SHIP_SCALE * type.getHeight();
     }
 
     public int getX() {
-        return (int) x;
+        return (int) (swarm.getX() + offsetX);
     }
 
     public int getY() {
-        return (int) y;
+        return (int) (swarm.getY() + offsetY);
+    }
+
+    int getOffsetX() {
+        return offsetX;
+    }
+
+    int getOffsetY() {
+        return offsetY;
+    }
+
+    public int getRenderX(double alpha) {
+        return (int) Math.round(swarm.getRenderX(alpha) + offsetX);
+    }
+
+    public int getRenderY(double alpha) {
+        return (int) Math.round(swarm.getRenderY(alpha) + offsetY);
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
     }
 
 }
@@ -0,0 +1,74 @@
+package si.model;
+
+/**
+ * Accumulator that turns real elapsed time into a whole number of fixed-length
+ * simulation ticks. Rendering can run at any rate; the fraction of a tick left in
+ * the accumulator is exposed as an interpolation factor for drawing between ticks.
+ */
+public class FixedTimestep {
+    private long stepNanos;
+    private int maxTicksPerAdvance;
+    private long accumulator;
+    private long lastTime;
+    private boolean started;
+
+    /**
+     * @param ticksPerSecond     simulation rate
+     * @param maxTicksPerAdvance most ticks to run in one advance when catching up after
+     *                           a stall; any further backlog is dropped
+     */
+    public FixedTimestep(int ticksPerSecond, int maxTicksPerAdvance) {
+        setTicksPerSecond(ticksPerSecond);
+        this.maxTicksPerAdvance = maxTicksPerAdvance;
+    }
+
+    public void setTicksPerSecond(int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + ticksPerSecond);
+        }
+        stepNanos = 1000000000L / ticksPerSecond;
+        accumulator = 0;
+    }
+
+    /**
+     * Adds the time elapsed since the previous call to the accumulator and takes every
+     * whole tick out of it. Ticks beyond maxTicksPerAdvance are dropped rather than
+     * carried over, so a stall never snowballs into ever longer catch-up runs.
+     *
+     * @param now current time in nanoseconds, e.g. from System.nanoTime()
+     * @return the number of ticks the caller should simulate now
+     */
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            lastTime = now;
+            return 0;
+        }
+        accumulator += Math.max(0, now - lastTime);
+        lastTime = now;
+        long ticks = accumulator / stepNanos;
+        accumulator -= ticks * stepNanos;
+        return (int) Math.min(ticks, maxTicksPerAdvance);
+    }
+
+    /**
+     * @return how far, from 0 to 1, real time has progressed into the next tick
+     */
+    public double getAlpha() {
+        return (double) accumulator / stepNanos;
+    }
+
+    /**
+     * @param i     index of a tick among those returned by the last advance
+     * @param ticks the number of ticks the last advance returned
+     * @return the real time at which that tick's share of the elapsed time ended, in the
+     * units passed to advance
+     */
+    public long getTickEnd(int i, int ticks) {
+        return lastTime - accumulator - (ticks - 1 - i) * stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
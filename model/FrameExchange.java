@@ -0,0 +1,64 @@
+package si.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple-buffered hand-over of {@link RenderFrame}s from the simulation to the
+ * renderer. The writer always fills a frame nobody else holds and publishes it by
+ * swapping it with the shared middle frame; the reader takes the middle frame in
+ * exchange for the one it was drawing, but only when a newer one was published.
+ * Both sides swap with one atomic operation, so neither ever waits for the other or
+ * copies a frame, and the reader always sees a whole tick.
+ */
+public class FrameExchange {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4; // set while the middle frame has not been read
+    private final RenderFrame[] frames = new RenderFrame[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0; // only touched by the writer
+    private long published; // frames published so far, writer only
+    private boolean skipped; // the writer's back frame was published but never read
+    private int front = 2; // only touched by the reader
+
+    FrameExchange(int maxBullets, int maxAliens) {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new RenderFrame(maxBullets, maxAliens);
+        }
+    }
+
+    /**
+     * @return the frame the writer may fill; it stays the writer's until published
+     */
+    RenderFrame getBackFrame() {
+        return frames[back];
+    }
+
+    /**
+     * Makes the back frame the latest one and gives the writer another to fill.
+     */
+    void publish() {
+        frames[back].setSequence(++published);
+        int old = middle.getAndSet(back | FRESH);
+        back = old & INDEX;
+        skipped = (old & FRESH) != 0;
+    }
+
+    /**
+     * @return whether the back frame, about to be refilled, was replaced by a newer
+     * one before the reader ever took it
+     */
+    boolean isBackFrameSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the most recently published frame, which stays valid and unchanged until
+     * the next call; called from one rendering thread only
+     */
+    public RenderFrame getLatest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return frames[front];
+    }
+}
@@ -0,0 +1,36 @@
+package si.model;
+
+/**
+ * Small seeded random number generator (SplitMix64) shared by everything random in
+ * a game, so one seed reproduces a whole session. Its entire state is a single long,
+ * which makes it trivial to save and restore.
+ */
+public class GameRandom {
+    private long state;
+
+    public GameRandom(long seed) {
+        state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return a value from 0 (inclusive) to bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
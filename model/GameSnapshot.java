@@ -0,0 +1,112 @@
+package si.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * A reusable buffer holding the complete state of a game at the end of one tick.
+ * Filled by {@link SpaceInvadersGame#save(GameSnapshot)} and applied with
+ * {@link SpaceInvadersGame#restore(GameSnapshot)}; taking a snapshot never allocates.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x5349534E; // "SISN"
+    private static final int VERSION = 1;
+    private ByteBuffer data;
+    private long tick;
+
+    /**
+     * @param capacity size in bytes, see {@link SpaceInvadersGame#getSnapshotCapacity()}
+     */
+    public GameSnapshot(int capacity) {
+        data = ByteBuffer.allocate(capacity);
+    }
+
+    ByteBuffer beginWrite(long tick) {
+        this.tick = tick;
+        data.clear();
+        return data;
+    }
+
+    void endWrite() {
+        data.flip();
+    }
+
+    ByteBuffer beginRead() {
+        data.rewind();
+        return data;
+    }
+
+    /**
+     * @return the tick count of the game when the snapshot was taken
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the number of bytes of state held
+     */
+    public int size() {
+        return data.limit();
+    }
+
+    public int capacity() {
+        return data.capacity();
+    }
+
+    /**
+     * @return a CRC of the state, to check that two games are in step
+     */
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, size());
+        return crc.getValue();
+    }
+
+    public void copyFrom(GameSnapshot other) {
+        if (other.size() > capacity()) {
+            throw new IllegalArgumentException("Snapshot of " + other.size() + " bytes does not fit in " + capacity());
+        }
+        tick = other.tick;
+        data.clear();
+        data.put(other.data.array(), 0, other.size());
+        data.flip();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream stream = new DataOutputStream(out);
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        stream.writeLong(tick);
+        stream.writeInt(size());
+        stream.write(data.array(), 0, size());
+        stream.flush();
+    }
+
+    /**
+     * Reads a snapshot saved with {@link #write(OutputStream)} into this buffer.
+     */
+    public void read(InputStream in) throws IOException {
+        DataInputStream stream = new DataInputStream(in);
+        if (stream.readInt() != MAGIC) {
+            throw new IOException("Not a game snapshot");
+        }
+        int version = stream.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        tick = stream.readLong();
+        int size = stream.readInt();
+        if (size < 0 || size > capacity()) {
+            throw new IOException("Snapshot of " + size + " bytes does not fit in " + capacity());
+        }
+        data.clear();
+        stream.readFully(data.array(), 0, size);
+        data.limit(size);
+    }
+}
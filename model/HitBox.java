@@ -0,0 +1,48 @@
+package si.model;
+
+/**
+ * Immutable axis-aligned box in screen pixels. The model keeps its own type so it
+ * compiles and runs without JavaFX; the display converts where it needs to.
+ */
+public final class HitBox {
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    public HitBox(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public double getWidth() {
+        return maxX - minX;
+    }
+
+    public double getHeight() {
+        return maxY - minY;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + minX + "," + minY + " " + getWidth() + "x" + getHeight() + "]";
+    }
+}
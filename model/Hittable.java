@@ -1,12 +1,42 @@
 package si.model;
 
-import javafx.geometry.Rectangle2D;
-
 public interface Hittable{
 	public boolean isAlive();
 	public int getPoints();
 	public boolean isPlayer();
 	public boolean isHit(Bullet b);
-	public Rectangle2D getHitBox();
+	public double getMinX();
+	public double getMinY();
+	public double getMaxX();
+	public double getMaxY();
+
+	/**
+	 * Allocation-free overlap test against an axis-aligned box. Boxes that only
+	 * touch along an edge do not overlap.
+	 */
+	public default boolean overlaps(double minX, double minY, double maxX, double maxY) {
+		return minX < getMaxX() && maxX > getMinX() && minY < getMaxY() && maxY > getMinY();
+	}
+
+	public default boolean overlaps(Hittable h) {
+		return overlaps(h.getMinX(), h.getMinY(), h.getMaxX(), h.getMaxY());
+	}
+
+	/**
+	 * Swept test over the bullet's last move.
+	 *
+	 * @return the fraction of the move at which the bullet first touches this target,
+	 * or {@link Collision#MISS}
+	 */
+	public default double timeOfImpact(Bullet b) {
+		return Collision.sweep(b, getMinX(), getMinY(), getMaxX(), getMaxY());
+	}
+
+	/**
+	 * Kept for compatibility; collision code uses the primitive bounds instead.
+	 */
+	public default HitBox getHitBox() {
+		return new HitBox(getMinX(), getMinY(), getMaxX(), getMaxY());
+	}
 }
 
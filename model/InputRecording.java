@@ -0,0 +1,113 @@
+package si.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The player's input for every tick of a game, packed four bits per tick, together
+ * with the seed and levels needed to re-simulate the game exactly.
+ */
+public class InputRecording {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int FIRE = 4;
+    /** Pause was toggled since the previous tick. */
+    public static final int PAUSE = 8;
+    private static final int MAGIC = 0x53495243; // "SIRC"
+    private static final int VERSION = 2; // 2 added the bunker cell size and damage radius
+
+    private long seed;
+    private LevelConfig[] levels;
+    private byte[] packed = new byte[1024];
+    private int ticks;
+
+    public InputRecording(long seed, LevelConfig[] levels) {
+        this.seed = seed;
+        this.levels = levels.clone();
+    }
+
+    /**
+     * Discards recorded ticks and starts again for a new game.
+     */
+    public void restart(long seed, LevelConfig[] levels) {
+        this.seed = seed;
+        this.levels = levels.clone();
+        ticks = 0;
+        Arrays.fill(packed, (byte) 0);
+    }
+
+    public void record(int bits) {
+        int index = ticks >> 1;
+        if (index == packed.length) {
+            packed = Arrays.copyOf(packed, packed.length * 2);
+        }
+        packed[index] |= (bits & 0xF) << ((ticks & 1) * 4);
+        ticks++;
+    }
+
+    public int get(int tick) {
+        return (packed[tick >> 1] >> ((tick & 1) * 4)) & 0xF;
+    }
+
+    public int size() {
+        return ticks;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public LevelConfig[] getLevels() {
+        return levels.clone();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(seed);
+        data.writeInt(levels.length);
+        for (LevelConfig l : levels) {
+            data.writeDouble(l.getStartingSpeed());
+            data.writeInt(l.getRows());
+            data.writeInt(l.getCols());
+            data.writeInt(l.getBunkerCellSize());
+            data.writeInt(l.getBunkerDamageRadius());
+        }
+        data.writeInt(ticks);
+        data.write(packed, 0, (ticks + 1) >> 1);
+        data.flush();
+    }
+
+    public static InputRecording read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an input recording");
+        }
+        int version = data.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        long seed = data.readLong();
+        LevelConfig[] levels = new LevelConfig[data.readInt()];
+        for (int i = 0; i < levels.length; i++) {
+            double speed = data.readDouble();
+            int rows = data.readInt();
+            int cols = data.readInt();
+            if (version == 1) {
+                levels[i] = new LevelConfig(speed, rows, cols);
+            } else {
+                levels[i] = new LevelConfig(speed, rows, cols, data.readInt(), data.readInt());
+            }
+        }
+        InputRecording r = new InputRecording(seed, levels);
+        r.ticks = data.readInt();
+        r.packed = new byte[Math.max(1, (r.ticks + 1) >> 1)];
+        data.readFully(r.packed, 0, (r.ticks + 1) >> 1);
+        return r;
+    }
+}
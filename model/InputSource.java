@@ -0,0 +1,25 @@
+package si.model;
+
+/**
+ * Player controls as seen by the simulation. The JavaFX key listener is one
+ * implementation; headless runs supply scripted or recorded input instead.
+ */
+public interface InputSource {
+	/**
+	 * Fixes the controls for the tick ending at the given time, which the other
+	 * methods then report until the next call. Called once at the start of each tick.
+	 *
+	 * @param until end of the tick as System.nanoTime(), or Long.MAX_VALUE
+	 */
+	public void beginTick(long until);
+	/**
+	 * @return System.nanoTime() of the earliest key press that reached the current
+	 * tick, or 0 if none did or the source does not keep times
+	 */
+	public long getInputTime();
+	public boolean isPressingLeft();
+	public boolean isPressingRight();
+	public boolean isPressingFire();
+	public boolean hasPressedPause();
+	public void resetPause();
+}
@@ -0,0 +1,124 @@
+package si.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands key presses and releases from the UI thread to the simulation in order and
+ * with the time they happened. The UI thread appends events to a fixed ring and the
+ * simulation drains, once per tick, the events that happened before the tick ended,
+ * so that the controls of each tick are rebuilt from what the keys did during it: a
+ * key that was down at any moment of the tick counts as pressed for that tick, even
+ * if it was tapped and released again before the tick ran. Keys are {@link InputRecording} bits.
+ * <p>
+ * One thread may append and one other thread may drain; neither ever blocks. Should
+ * the ring fill up, new events are dropped and the next drain falls back to the keys
+ * that are down at that moment.
+ */
+public class KeyEventQueue {
+    private static final int PRESSED = 1 << 31;
+    private final int[] keys; // key bits, PRESSED set for a press
+    private final long[] times;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // written by the producer only
+    private final AtomicLong head = new AtomicLong(); // written by the consumer only
+    private volatile int down; // keys down as the producer last saw them
+    private volatile boolean overflowed;
+    // consumer state
+    private int held;
+    private int tickKeys;
+    private long firstPress; // time of the earliest press applied by the last drain, 0 if none
+
+    /**
+     * @param capacity events that can wait to be drained, rounded up to a power of two
+     */
+    public KeyEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        keys = new int[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Records that a key went down. Repeated presses of a key that is already down,
+     * as sent by keyboard auto-repeat, are ignored.
+     */
+    public void press(int key, long nanos) {
+        if ((down & key) == 0) {
+            down |= key;
+            append(key | PRESSED, nanos);
+        }
+    }
+
+    public void release(int key, long nanos) {
+        if ((down & key) != 0) {
+            down &= ~key;
+            append(key, nanos);
+        }
+    }
+
+    private void append(int event, long nanos) {
+        long t = tail.get();
+        if (t - head.get() == keys.length) {
+            overflowed = true;
+            return;
+        }
+        int i = (int) t & mask;
+        keys[i] = event;
+        times[i] = nanos;
+        tail.lazySet(t + 1);
+    }
+
+    /**
+     * Applies every event that happened up to the given time and works out the keys
+     * for the tick ending then. Later events wait for a later tick.
+     *
+     * @param until end of the tick, as System.nanoTime(); Long.MAX_VALUE takes everything
+     * @return the keys that were down at any moment of the tick
+     */
+    public int drain(long until) {
+        int active = held;
+        firstPress = 0;
+        long h = head.get();
+        long t = tail.get();
+        while (h < t) {
+            int i = (int) h & mask;
+            if (times[i] > until) {
+                break;
+            }
+            int event = keys[i];
+            int key = event & ~PRESSED;
+            if ((event & PRESSED) != 0) {
+                if (firstPress == 0) {
+                    firstPress = times[i];
+                }
+                held |= key;
+                active |= key;
+            } else {
+                held &= ~key;
+            }
+            h++;
+        }
+        head.lazySet(h);
+        if (overflowed && h == tail.get()) {
+            overflowed = false;
+            held = down;
+        }
+        tickKeys = held | active;
+        return tickKeys;
+    }
+
+    /**
+     * @return the time passed with the earliest press the last drain applied, or 0 if it
+     * applied none
+     */
+    public long getFirstPressTime() {
+        return firstPress;
+    }
+
+    /**
+     * @return the keys of the tick last drained
+     */
+    public int getTickKeys() {
+        return tickKeys;
+    }
+}
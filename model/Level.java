@@ -2,10 +2,7 @@ package si.model;
 
 //关卡Level
 
-import javafx.geometry.Rectangle2D;
-
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class Level {
@@ -14,13 +11,21 @@ public class Level {
     private double startingSpeed; // 敌人初始移动速度
     private int rows; //敌人集群的行数
     private int cols; //敌人集群的列数
+    private int bunkerCellSize; //掩体格子的像素大小
+    private int bunkerDamageRadius; //每次命中侵蚀的半径
     private SpaceInvadersGame game; //游戏主类
 
     public Level(double ss, int row, int col, SpaceInvadersGame g) {
+        this(new LevelConfig(ss, row, col), g);
+    }
+
+    public Level(LevelConfig config, SpaceInvadersGame g) {
         game = g;
-        startingSpeed = ss;
-        rows = row;
-        cols = col;
+        startingSpeed = config.getStartingSpeed();
+        rows = config.getRows();
+        cols = config.getCols();
+        bunkerCellSize = config.getBunkerCellSize();
+        bunkerDamageRadius = config.getBunkerDamageRadius();
         reset();
     }
 
@@ -32,44 +37,65 @@ public class Level {
         return swarm.getBottomY();
     }
 
-    public List<Hittable> getHittable() {
-        List<Hittable> targets = new ArrayList<Hittable>();
-        targets.addAll(swarm.getHittable());
+    public void register(SpatialGrid grid) {
+        swarm.register(grid);
         for (int i = 0; i < bunkers.length; i++) {
-            targets.add(bunkers[i]);
+            grid.insert(bunkers[i]);
         }
-        return targets;
     }
 
-    public List<Bullet> move() {
+    public void move(BulletPool enemyBullets, GameRandom rand) {
         swarm.move();
-        List<EnemyShip> ships = swarm.getBottom();
-        List<Bullet> eBullets = new ArrayList<Bullet>();
-        for (EnemyShip s : ships) {
-            Bullet b = s.fire();
-            if (b != null) {
-                eBullets.add(b);
+        for (int i = 0; i < swarm.getColumns(); i++) {
+            EnemyShip s = swarm.getBottomShip(i);
+            if (s != null) {
+                s.fire(enemyBullets, rand);
             }
         }
-        return eBullets;
     }
 
     public List<EnemyShip> getEnemyShips() {
         return swarm.getEnemyShips();
     }
 
-    public List<Rectangle2D> getBunkers(){
-        List<Rectangle2D> bricks = new ArrayList<>();
-        for(Bunker b: bunkers){
-            bricks.addAll(b.getBricks());
+    public Bunker[] getBunkers(){
+        return bunkers;
+    }
+
+    Swarm getSwarm() {
+        return swarm;
+    }
+
+    // 快照最多占用的字节数
+    int snapshotSize() {
+        int size = swarm.snapshotSize();
+        for (int i = 0; i < bunkers.length; i++) {
+            size += bunkers[i].snapshotSize();
+        }
+        return size;
+    }
+
+    // 写入集群和掩体的状态
+    void save(ByteBuffer out) {
+        swarm.save(out);
+        for (int i = 0; i < bunkers.length; i++) {
+            bunkers[i].save(out);
+        }
+    }
+
+    // 恢复集群和掩体的状态，之后需要重新注册到空间网格
+    void restore(ByteBuffer in) {
+        swarm.restore(in);
+        for (int i = 0; i < bunkers.length; i++) {
+            bunkers[i].restore(in);
         }
-        return bricks;
     }
 
     public void reset() {
         bunkers = new Bunker[4];
         for (int i = 0; i < bunkers.length; i++) {
-            bunkers[i] = new Bunker((i + 1) * game.getScreenWidth() / 5, SpaceInvadersGame.BUNKER_TOP);
+            bunkers[i] = new Bunker((i + 1) * game.getScreenWidth() / 5, SpaceInvadersGame.BUNKER_TOP, bunkerCellSize);
+            bunkers[i].setDamageRadius(bunkerDamageRadius);
         }
         swarm = new Swarm(rows, cols, startingSpeed, 1, game);
     }
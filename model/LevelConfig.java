@@ -0,0 +1,58 @@
+package si.model;
+
+/**
+ * Parameters that define one level: the swarm's starting speed and its size, and how
+ * finely its bunkers break up.
+ */
+public class LevelConfig {
+    private final double startingSpeed;
+    private final int rows;
+    private final int cols;
+    private final int bunkerCellSize;
+    private final int bunkerDamageRadius;
+
+    public LevelConfig(double startingSpeed, int rows, int cols) {
+        this(startingSpeed, rows, cols, Bunker.DEFAULT_CELL_SIZE, 0);
+    }
+
+    /**
+     * @param bunkerCellSize     see {@link Bunker#Bunker(int, int, int)}
+     * @param bunkerDamageRadius see {@link Bunker#setDamageRadius(int)}
+     */
+    public LevelConfig(double startingSpeed, int rows, int cols, int bunkerCellSize, int bunkerDamageRadius) {
+        this.startingSpeed = startingSpeed;
+        this.rows = rows;
+        this.cols = cols;
+        this.bunkerCellSize = bunkerCellSize;
+        this.bunkerDamageRadius = bunkerDamageRadius;
+    }
+
+    public double getStartingSpeed() {
+        return startingSpeed;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getBunkerCellSize() {
+        return bunkerCellSize;
+    }
+
+    public int getBunkerDamageRadius() {
+        return bunkerDamageRadius;
+    }
+
+    @Override
+    public String toString() {
+        String s = "speed=" + startingSpeed + " " + rows + "x" + cols;
+        if (bunkerCellSize != Bunker.DEFAULT_CELL_SIZE || bunkerDamageRadius != 0) {
+            s += " bunker=" + bunkerCellSize + "/" + bunkerDamageRadius;
+        }
+        return s;
+    }
+}
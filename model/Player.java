@@ -1,21 +1,32 @@
 package si.model;
 
 
-import javafx.geometry.Rectangle2D;
+import java.nio.ByteBuffer;
 
 public class Player implements Hittable {
     private int x;
     private int y;
-    private Rectangle2D hitBox;
+    private int prevX; // position at the start of the current tick, for interpolation
+    private int startX;
     private int weaponCountdown;
     private boolean alive = true;
     public static final int SHIP_SCALE = 4;
     private static final int WIDTH = SHIP_SCALE * 8;
+    private static final int HEIGHT = SHIP_SCALE * 5;
+    static final int SNAPSHOT_BYTES = 8;
 
     public Player() {
-        x = 400 - WIDTH;
+        this(400 - WIDTH);
+    }
+
+    /**
+     * @param startX where the ship starts, and restarts after being destroyed
+     */
+    public Player(int startX) {
+        this.startX = startX;
+        x = startX;
         y = 450;
-        hitBox = new Rectangle2D(x, y, 8 * SHIP_SCALE, 5 * SHIP_SCALE);
+        prevX = x;
     }
 
     public int getX() {
@@ -26,8 +37,12 @@ public class Player implements Hittable {
         return y;
     }
 
+    public int getRenderX(double alpha) {
+        return (int) Math.round(prevX + (x - prevX) * alpha);
+    }
+
     public boolean isHit(Bullet b) {
-        boolean hit = hitBox.intersects(b.getHitBox());
+        boolean hit = timeOfImpact(b) != Collision.MISS;
         if (hit) {
             alive = false;
         }
@@ -35,6 +50,7 @@ public class Player implements Hittable {
     }
 
     public void tick() {
+        prevX = x;
         if (weaponCountdown > 0) {
             weaponCountdown--;
         } else {
@@ -48,9 +64,9 @@ public class Player implements Hittable {
 
     public void resetDestroyed() {
         alive = true;
-        x = 400 - WIDTH;
+        x = startX;
+        prevX = x;
         y = 450;
-        hitBox = new Rectangle2D(x, y, 8 * SHIP_SCALE, 5 * SHIP_SCALE);
     }
 
     public int getPoints() {
@@ -61,26 +77,53 @@ public class Player implements Hittable {
         return true;
     }
 
-    @Override
-    public Rectangle2D getHitBox() {
-        return hitBox;
+    public double getMinX() {
+        return x;
+    }
+
+    public double getMinY() {
+        return y;
+    }
+
+    public double getMaxX() {
+        return x + WIDTH;
+    }
+
+    public double getMaxY() {
+        return y + HEIGHT;
     }
 
-    public Bullet fire() { //子弹
+    public Bullet fire(BulletPool pool) { //子弹
         Bullet b = null;
         if (weaponCountdown == 0) {
-            b = new Bullet(x + 3 * SHIP_SCALE, y - 1 * SHIP_SCALE, true, "Player");
+            b = pool.acquire(x + 3 * SHIP_SCALE, y - 1 * SHIP_SCALE, true);
         }
         return b;
     }
 
     public void move(int x1, int y1) {
-        Rectangle2D newBox = new Rectangle2D(x + x1, y+y1, 8 * SHIP_SCALE, 5 * SHIP_SCALE);
-        if (SpaceInvadersGame.getScreenBounds().contains(newBox)) {
-            hitBox = newBox;
+        int newX = x + x1, newY = y + y1;
+        if (newX >= 0 && newY >= 0 && newX + WIDTH <= SpaceInvadersGame.SCREEN_WIDTH
+                && newY + HEIGHT <= SpaceInvadersGame.SCREEN_HEIGHT) {
             this.x += x1;
             this.y += y1;
         }
     }
 
+    void save(ByteBuffer out) {
+        out.putShort((short) x);
+        out.putShort((short) y);
+        out.putShort((short) prevX);
+        out.put((byte) weaponCountdown);
+        out.put((byte) (alive ? 1 : 0));
+    }
+
+    void restore(ByteBuffer in) {
+        x = in.getShort();
+        y = in.getShort();
+        prevX = in.getShort();
+        weaponCountdown = in.get();
+        alive = in.get() != 0;
+    }
+
 }
@@ -0,0 +1,348 @@
+package si.model;
+
+import java.util.List;
+
+/**
+ * Everything the renderer needs to draw one simulation tick, kept in flat arrays that
+ * are allocated once and overwritten in place. Each moving entity stores its position
+ * before and after the tick so the renderer can interpolate between them. Frames are
+ * filled by the simulation and handed to the renderer through a {@link FrameExchange}.
+ */
+public class RenderFrame {
+    private static final AlienType[] ALIEN_TYPES = AlienType.values();
+
+    private long tick;
+    private long sequence;
+    private long inputTime;
+    private int generation; // changes whenever the level's entities are replaced
+    private int lives;
+    private int score;
+    private boolean paused;
+    private boolean playerAlive;
+
+    private int ships;
+    private int[] shipPrevX = new int[2];
+    private int[] shipX = new int[2];
+    private int[] shipY = new int[2];
+
+    private int bullets;
+    private int[] bulletPrevX;
+    private int[] bulletPrevY;
+    private int[] bulletX;
+    private int[] bulletY;
+
+    private double swarmPrevX, swarmPrevY, swarmX, swarmY;
+    private int aliens;
+    private byte[] alienType;
+    private int[] alienOffsetX;
+    private int[] alienOffsetY;
+
+    private int bunkers;
+    private int[] bunkerX = new int[0];
+    private int[] bunkerY = new int[0];
+    private int[] bunkerCellSize = new int[0];
+    private int[] bunkerRows = new int[0];
+    private int[] bunkerColumns = new int[0];
+    private long[] bunkerRowBits = new long[0]; // each bunker's rows, one after another
+
+    /**
+     * Creates an empty frame to be filled by {@link #copyFrom(RenderFrame)}, which grows
+     * its arrays as needed.
+     */
+    public RenderFrame() {
+        this(0, 0);
+    }
+
+    RenderFrame(int maxBullets, int maxAliens) {
+        bulletPrevX = new int[maxBullets];
+        bulletPrevY = new int[maxBullets];
+        bulletX = new int[maxBullets];
+        bulletY = new int[maxBullets];
+        alienType = new byte[maxAliens];
+        alienOffsetX = new int[maxAliens];
+        alienOffsetY = new int[maxAliens];
+    }
+
+    /**
+     * Overwrites this frame with the game's current state. Nothing is allocated unless
+     * a level has more bunker rows than any before it.
+     */
+    void capture(SpaceInvadersGame game, int generation, long inputTime) {
+        this.tick = game.getTickCount();
+        this.inputTime = inputTime;
+        this.generation = generation;
+        lives = game.getLives();
+        score = game.getPlayerScore();
+        paused = game.isPaused();
+        playerAlive = game.isPlayerAlive();
+
+        ships = game.getPlayerCount();
+        for (int i = 0; i < ships; i++) {
+            Player p = game.getShip(i);
+            shipPrevX[i] = p.getRenderX(0);
+            shipX[i] = p.getX();
+            shipY[i] = p.getY();
+        }
+
+        bullets = 0;
+        addBullets(game.getPlayerBullets());
+        addBullets(game.getEnemyBullets());
+
+        aliens = 0;
+        bunkers = 0;
+        Level level = game.getLevel();
+        if (level == null) {
+            return;
+        }
+        Swarm swarm = level.getSwarm();
+        swarmPrevX = swarm.getRenderX(0);
+        swarmPrevY = swarm.getRenderY(0);
+        swarmX = swarm.getX();
+        swarmY = swarm.getY();
+        List<EnemyShip> live = swarm.getLiveShips();
+        if (live.size() > alienType.length) {
+            throw new IllegalStateException("Frame holds " + alienType.length + " aliens, swarm has " + live.size());
+        }
+        for (int i = 0; i < live.size(); i++) {
+            EnemyShip s = live.get(i);
+            alienType[i] = (byte) s.getType().ordinal();
+            alienOffsetX[i] = s.getOffsetX();
+            alienOffsetY[i] = s.getOffsetY();
+        }
+        aliens = live.size();
+
+        Bunker[] all = level.getBunkers();
+        int rows = 0;
+        for (Bunker b : all) {
+            rows += b.getRows();
+        }
+        if (bunkerX.length < all.length) {
+            bunkerX = new int[all.length];
+            bunkerY = new int[all.length];
+            bunkerCellSize = new int[all.length];
+            bunkerRows = new int[all.length];
+            bunkerColumns = new int[all.length];
+        }
+        if (bunkerRowBits.length < rows) {
+            bunkerRowBits = new long[rows];
+        }
+        int row = 0;
+        for (Bunker b : all) {
+            bunkerX[bunkers] = b.getX();
+            bunkerY[bunkers] = b.getY();
+            bunkerCellSize[bunkers] = b.getCellSize();
+            bunkerRows[bunkers] = b.getRows();
+            bunkerColumns[bunkers] = b.getColumns();
+            for (int r = 0; r < b.getRows(); r++) {
+                bunkerRowBits[row++] = b.getRowBits(r);
+            }
+            bunkers++;
+        }
+    }
+
+    /**
+     * Overwrites this frame with a copy of another, so it can be kept after the
+     * exchange reuses the original. Nothing is allocated once this frame has held one
+     * at least as large.
+     */
+    public void copyFrom(RenderFrame other) {
+        tick = other.tick;
+        sequence = other.sequence;
+        inputTime = other.inputTime;
+        generation = other.generation;
+        lives = other.lives;
+        score = other.score;
+        paused = other.paused;
+        playerAlive = other.playerAlive;
+
+        ships = other.ships;
+        System.arraycopy(other.shipPrevX, 0, shipPrevX, 0, ships);
+        System.arraycopy(other.shipX, 0, shipX, 0, ships);
+        System.arraycopy(other.shipY, 0, shipY, 0, ships);
+
+        bullets = other.bullets;
+        if (bulletX.length < bullets) {
+            bulletPrevX = new int[other.bulletX.length];
+            bulletPrevY = new int[other.bulletX.length];
+            bulletX = new int[other.bulletX.length];
+            bulletY = new int[other.bulletX.length];
+        }
+        System.arraycopy(other.bulletPrevX, 0, bulletPrevX, 0, bullets);
+        System.arraycopy(other.bulletPrevY, 0, bulletPrevY, 0, bullets);
+        System.arraycopy(other.bulletX, 0, bulletX, 0, bullets);
+        System.arraycopy(other.bulletY, 0, bulletY, 0, bullets);
+
+        swarmPrevX = other.swarmPrevX;
+        swarmPrevY = other.swarmPrevY;
+        swarmX = other.swarmX;
+        swarmY = other.swarmY;
+        aliens = other.aliens;
+        if (alienType.length < aliens) {
+            alienType = new byte[other.alienType.length];
+            alienOffsetX = new int[other.alienType.length];
+            alienOffsetY = new int[other.alienType.length];
+        }
+        System.arraycopy(other.alienType, 0, alienType, 0, aliens);
+        System.arraycopy(other.alienOffsetX, 0, alienOffsetX, 0, aliens);
+        System.arraycopy(other.alienOffsetY, 0, alienOffsetY, 0, aliens);
+
+        bunkers = other.bunkers;
+        if (bunkerX.length < bunkers) {
+            bunkerX = new int[bunkers];
+            bunkerY = new int[bunkers];
+            bunkerCellSize = new int[bunkers];
+            bunkerRows = new int[bunkers];
+            bunkerColumns = new int[bunkers];
+        }
+        int rows = 0;
+        for (int i = 0; i < bunkers; i++) {
+            rows += other.bunkerRows[i];
+        }
+        if (bunkerRowBits.length < rows) {
+            bunkerRowBits = new long[rows];
+        }
+        System.arraycopy(other.bunkerX, 0, bunkerX, 0, bunkers);
+        System.arraycopy(other.bunkerY, 0, bunkerY, 0, bunkers);
+        System.arraycopy(other.bunkerCellSize, 0, bunkerCellSize, 0, bunkers);
+        System.arraycopy(other.bunkerRows, 0, bunkerRows, 0, bunkers);
+        System.arraycopy(other.bunkerColumns, 0, bunkerColumns, 0, bunkers);
+        System.arraycopy(other.bunkerRowBits, 0, bunkerRowBits, 0, rows);
+    }
+
+    private void addBullets(BulletPool pool) {
+        for (int i = 0; i < pool.size(); i++) {
+            Bullet b = pool.get(i);
+            bulletPrevX[bullets] = b.getPrevX();
+            bulletPrevY[bullets] = b.getPrevY();
+            bulletX[bullets] = b.getX();
+            bulletY[bullets] = b.getY();
+            bullets++;
+        }
+    }
+
+    private static int lerp(int from, int to, double alpha) {
+        return (int) Math.round(from + (to - from) * alpha);
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return how many frames had been published when this one was, so each frame can be
+     * told apart even when several are published in one tick
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return System.nanoTime() of the earliest key press that this frame is the first
+     * to show the effect of, or 0 if none. Presses consumed by ticks whose frames the
+     * renderer never took are carried into the next frame.
+     */
+    public long getInputTime() {
+        return inputTime;
+    }
+
+    /**
+     * @return a number that changes whenever a new game or level replaces the entities,
+     * so a renderer caching anything about them knows to start over
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isPlayerAlive() {
+        return playerAlive;
+    }
+
+    public int getShipCount() {
+        return ships;
+    }
+
+    public int getShipX(int i, double alpha) {
+        return lerp(shipPrevX[i], shipX[i], alpha);
+    }
+
+    public int getShipY(int i) {
+        return shipY[i];
+    }
+
+    public int getBulletCount() {
+        return bullets;
+    }
+
+    public int getBulletX(int i, double alpha) {
+        return lerp(bulletPrevX[i], bulletX[i], alpha);
+    }
+
+    public int getBulletY(int i, double alpha) {
+        return lerp(bulletPrevY[i], bulletY[i], alpha);
+    }
+
+    public int getAlienCount() {
+        return aliens;
+    }
+
+    public AlienType getAlienType(int i) {
+        return ALIEN_TYPES[alienType[i]];
+    }
+
+    public int getAlienX(int i, double alpha) {
+        return (int) Math.round(swarmPrevX + (swarmX - swarmPrevX) * alpha + alienOffsetX[i]);
+    }
+
+    public int getAlienY(int i, double alpha) {
+        return (int) Math.round(swarmPrevY + (swarmY - swarmPrevY) * alpha + alienOffsetY[i]);
+    }
+
+    public int getBunkerCount() {
+        return bunkers;
+    }
+
+    public int getBunkerX(int i) {
+        return bunkerX[i];
+    }
+
+    public int getBunkerY(int i) {
+        return bunkerY[i];
+    }
+
+    public int getBunkerCellSize(int i) {
+        return bunkerCellSize[i];
+    }
+
+    public int getBunkerRows(int i) {
+        return bunkerRows[i];
+    }
+
+    public int getBunkerColumns(int i) {
+        return bunkerColumns[i];
+    }
+
+    /**
+     * @param first index of the bunker's first row among all bunker rows, the sum of
+     *              {@link #getBunkerRows(int)} over the bunkers before it
+     * @return the occupancy bits of one bunker row, bit 0 being the leftmost column
+     */
+    public long getBunkerRowBits(int first, int row) {
+        return bunkerRowBits[first + row];
+    }
+}
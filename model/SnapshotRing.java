@@ -0,0 +1,85 @@
+package si.model;
+
+/**
+ * Fixed number of preallocated snapshots of the most recent ticks, oldest overwritten
+ * first, so a game can be rewound by up to {@link #capacity()} - 1 ticks instantly.
+ */
+public class SnapshotRing {
+    private GameSnapshot[] slots;
+    private int newest = -1;
+    private int count;
+
+    /**
+     * @param capacity         number of snapshots kept
+     * @param snapshotCapacity size of each snapshot, see
+     *                         {@link SpaceInvadersGame#getSnapshotCapacity()}
+     */
+    public SnapshotRing(int capacity, int snapshotCapacity) {
+        slots = new GameSnapshot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new GameSnapshot(snapshotCapacity);
+        }
+    }
+
+    /**
+     * Snapshots the game's current state as the newest entry.
+     */
+    public void push(SpaceInvadersGame game) {
+        newest = (newest + 1) % slots.length;
+        game.save(slots[newest]);
+        count = Math.min(count + 1, slots.length);
+    }
+
+    /**
+     * @param back how many snapshots before the newest, 0 being the newest
+     */
+    public GameSnapshot get(int back) {
+        if (back < 0 || back >= count) {
+            throw new IndexOutOfBoundsException("No snapshot " + back + " back, " + count + " held");
+        }
+        return slots[(newest - back + slots.length) % slots.length];
+    }
+
+    /**
+     * Restores the snapshot taken the given number of pushes ago and discards the
+     * newer ones, so that snapshot becomes the newest.
+     *
+     * @return false if the ring does not reach that far back
+     */
+    public boolean rewind(SpaceInvadersGame game, int back) {
+        if (back < 0 || back >= count) {
+            return false;
+        }
+        newest = (newest - back + slots.length) % slots.length;
+        count -= back;
+        game.restore(slots[newest]);
+        return true;
+    }
+
+    /**
+     * Finds the newest snapshot taken at or before the given game tick.
+     *
+     * @return how many snapshots back it is, or -1 if none is held
+     */
+    public int find(long tick) {
+        for (int back = 0; back < count; back++) {
+            if (get(back).getTick() <= tick) {
+                return back;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public void clear() {
+        newest = -1;
+        count = 0;
+    }
+}
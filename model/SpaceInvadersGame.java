@@ -1,9 +1,13 @@
 package si.model;
 
 import ucd.comp2011j.engine.Game;
-import javafx.geometry.Rectangle2D;
-import si.display.PlayerListener;
+import si.trace.LevelTransitionEvent;
+import si.trace.PlayerDeathEvent;
+import si.trace.TickEvent;
 
+import jdk.jfr.EventType;
+
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,19 +17,92 @@ public class SpaceInvadersGame implements Game {
     private boolean pause = true;
     public static final int SCREEN_WIDTH = 768;
     public static final int SCREEN_HEIGHT = 512;
-    private static final Rectangle2D SCREEN_BOUNDS = new Rectangle2D(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
-    private List<Bullet> playerBullets;
-    private List<Bullet> enemyBullets;
-    private ArrayList<Hittable> targets;
-    private PlayerListener listener;
+    private static final int MAX_BULLETS = 256;
+    private BulletPool playerBullets;
+    private BulletPool enemyBullets;
+    private SpatialGrid grid;
+    private List<Hittable> candidates;
+    private InputSource listener;
     private Player player;
+    private Player player2; // second ship in co-op games, otherwise null
+    private int players;
     private Level[] level;
     public static final int BUNKER_TOP = 350;
-    private static final int NO_LEVELS = 5;
+    /** The five levels of the stock game. */
+    public static final LevelConfig[] DEFAULT_LEVELS = {
+            new LevelConfig(0.5, 3, 10),
+            new LevelConfig(1, 4, 11),
+            new LevelConfig(1.5, 5, 12),
+            new LevelConfig(2, 5, 14),
+            new LevelConfig(2.5, 5, 16)
+    };
+    private LevelConfig[] levelConfigs;
+    private int noLevels;
+    private long seed;
+    private boolean deterministic;
+    private GameRandom rand;
+    private InputRecording recording;
+    private int input; // InputRecording bits sampled at the start of the current tick
+    private int input2; // the second player's bits in co-op games
+    private long inputDeadline = Long.MAX_VALUE; // real time the current tick's input runs up to
+    private long inputTime; // earliest key press consumed since the last frame was published
+    private boolean pauseToggled; // pause changed since the previous tick
     private int currentLevel = 0;
+    private int deepestLevel; // highest level entered since the game started or was last restored
+    private long tickCount; // ticks simulated since the game started, paused ones included
+    public static final int DEFAULT_TICK_RATE = 60;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final int COOP_SPACING = 96; // distance of each co-op ship from the centre
+    // checked before creating each event, so ticks allocate nothing while no recording wants them
+    private static final EventType TICK_EVENT = EventType.getEventType(TickEvent.class);
+    private static final EventType DEATH_EVENT = EventType.getEventType(PlayerDeathEvent.class);
+    private static final EventType LEVEL_EVENT = EventType.getEventType(LevelTransitionEvent.class);
+    private FixedTimestep timestep = new FixedTimestep(DEFAULT_TICK_RATE, MAX_CATCH_UP_TICKS);
+    private TickProfiler profiler = new TickProfiler();
+    private int collisionTests; // candidate targets tested in the current tick
+    private FrameExchange frames; // created once a renderer asks for frames
+    private int generation; // counts level replacements, see RenderFrame.getGeneration()
+
+    /**
+     * Creates the stock game. Every new game draws a fresh seed, which can be read back
+     * with {@link #getSeed()} to reproduce it.
+     */
+    public SpaceInvadersGame(InputSource listener) {
+        this(listener, DEFAULT_LEVELS, 0, false, 1);
+    }
+
+    /**
+     * Creates a deterministic game: the same seed and the same input on every tick
+     * always play out identically.
+     *
+     * @param levels the levels to play, in order
+     * @param seed   seed for all of the game's randomness
+     */
+    public SpaceInvadersGame(InputSource listener, LevelConfig[] levels, long seed) {
+        this(listener, levels, seed, true, 1);
+    }
+
+    /**
+     * Creates a deterministic game whose input is passed to {@link #tick(int, int)} on
+     * every tick rather than read from a listener, as netplay needs.
+     *
+     * @param players 1, or 2 for co-op with two ships sharing lives and score
+     */
+    public SpaceInvadersGame(LevelConfig[] levels, long seed, int players) {
+        this(null, levels, seed, true, players);
+    }
 
-    public SpaceInvadersGame(PlayerListener listener) {
+    private SpaceInvadersGame(InputSource listener, LevelConfig[] levels, long seed, boolean deterministic,
+                              int players) {
+        if (players < 1 || players > 2) {
+            throw new IllegalArgumentException("Unsupported number of players " + players);
+        }
+        this.players = players;
         this.listener = listener;
+        this.levelConfigs = levels.clone();
+        this.noLevels = levels.length;
+        this.seed = seed;
+        this.deterministic = deterministic;
         startNewGame();
     }
 
@@ -41,84 +118,268 @@ public class SpaceInvadersGame implements Game {
     public void checkForPause() {
         if (listener.hasPressedPause()) {
             pause = !pause;
+            pauseToggled = !pauseToggled;
             listener.resetPause();
+            publishFrame();
         }
     }
 
+    /**
+     * Runs as many fixed-length ticks as the real time since the last call allows, so
+     * game speed no longer depends on how often the engine calls this.
+     */
     @Override
     public void updateGame() {
+        int ticks = timestep.advance(System.nanoTime());
+        for (int i = 0; i < ticks; i++) {
+            // each tick only sees the key events from its own share of the elapsed time
+            inputDeadline = timestep.getTickEnd(i, ticks);
+            tick();
+            // let the engine handle deaths and level changes; the ticks left over are dropped
+            if (!player.isAlive() || isLevelFinished()) {
+                break;
+            }
+        }
+        inputDeadline = Long.MAX_VALUE;
+    }
+
+    /**
+     * Advances the simulation by exactly one tick.
+     */
+    public void tick() {
+        sampleInput();
+        simulate();
+    }
+
+    /**
+     * Advances the simulation by exactly one tick with the given input instead of the
+     * listener's. A PAUSE bit from either player toggles pause. Input passed here is
+     * not recorded.
+     *
+     * @param input1 the first player's InputRecording bits
+     * @param input2 the second player's bits, ignored in one-player games
+     */
+    public void tick(int input1, int input2) {
+        input = input1;
+        this.input2 = input2;
+        if (((input1 | input2) & InputRecording.PAUSE) != 0) {
+            pause = !pause;
+        }
+        simulate();
+    }
+
+    private void simulate() {
+        TickEvent event = null;
+        if (TICK_EVENT.isEnabled()) {
+            event = new TickEvent();
+            event.begin();
+        }
+        tickCount++;
         if (!isPaused()) {
             player.tick();
-            targets.clear();
-            targets.addAll(level[currentLevel].getHittable());
-            targets.add(player);
+            if (player2 != null) {
+                player2.tick();
+            }
+            collisionTests = 0;
+            long t = profiler.start();
             playerBullets();
+            t = profiler.lap(TickProfiler.PLAYER_BULLETS, t);
             enemyBullets();
-            enemyBullets.addAll(level[currentLevel].move());
-            movePlayer();
+            t = profiler.lap(TickProfiler.ENEMY_BULLETS, t);
+            Level current = getLevel();
+            if (current != null) {
+                current.move(enemyBullets, rand);
+            }
+            t = profiler.lap(TickProfiler.LEVEL_MOVE, t);
+            movePlayer(player, input);
+            if (player2 != null) {
+                movePlayer(player2, input2);
+            }
+            profiler.lap(TickProfiler.MOVE_PLAYER, t);
+            if (profiler.isEnabled()) {
+                profiler.recordTick(countEntities(), collisionTests);
+            }
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tick = tickCount;
+                event.level = currentLevel;
+                event.paused = isPaused();
+                event.entities = countEntities();
+                event.collisionTests = isPaused() ? 0 : collisionTests;
+                event.commit();
+            }
         }
+        publishFrame();
     }
 
-    private void movePlayer() {
-        if (listener.isPressingFire()) {
-            Bullet b = player.fire();
-            if (b != null) {
-                playerBullets.add(b);
+    /**
+     * Hands the renderer a frame of the current state, if one has asked for frames.
+     */
+    private void publishFrame() {
+        if (frames != null) {
+            RenderFrame back = frames.getBackFrame();
+            long carried = frames.isBackFrameSkipped() ? back.getInputTime() : 0;
+            if (carried != 0 && (inputTime == 0 || carried < inputTime)) {
+                inputTime = carried;
             }
+            back.capture(this, generation, inputTime);
+            frames.publish();
         }
+        inputTime = 0;
+    }
+
+    /**
+     * From the first call on, a {@link RenderFrame} is published after every tick and
+     * every change the engine makes between ticks, so rendering can read a consistent
+     * copy of the state from any thread instead of the live entities.
+     */
+    public FrameExchange getFrameExchange() {
+        if (frames == null) {
+            int maxAliens = 0;
+            for (LevelConfig c : levelConfigs) {
+                maxAliens = Math.max(maxAliens, c.getRows() * c.getCols());
+            }
+            frames = new FrameExchange(2 * MAX_BULLETS, maxAliens);
+            publishFrame();
+        }
+        return frames;
+    }
+
+    private int countEntities() {
+        int count = players + playerBullets.size() + enemyBullets.size();
+        Level current = getLevel();
+        return current == null ? count : count + current.getShipsRemaining() + current.getBunkers().length;
+    }
+
+    /**
+     * Reads the controls once per tick so the tick only depends on the recorded bits.
+     */
+    private void sampleInput() {
+        listener.beginTick(inputDeadline);
+        long pressed = listener.getInputTime();
+        if (pressed != 0 && (inputTime == 0 || pressed < inputTime)) {
+            inputTime = pressed;
+        }
+        input = 0;
         if (listener.isPressingLeft()) {
-            player.move(-6, 0);
-        } else if (listener.isPressingRight()) {
-            player.move(+6, 0);
+            input |= InputRecording.LEFT;
+        }
+        if (listener.isPressingRight()) {
+            input |= InputRecording.RIGHT;
+        }
+        if (listener.isPressingFire()) {
+            input |= InputRecording.FIRE;
+        }
+        if (pauseToggled) {
+            input |= InputRecording.PAUSE;
+            pauseToggled = false;
+        }
+        if (recording != null) {
+            recording.record(input);
+        }
+    }
+
+    private void movePlayer(Player p, int bits) {
+        if ((bits & InputRecording.FIRE) != 0) {
+            p.fire(playerBullets);
+        }
+        if ((bits & InputRecording.LEFT) != 0) {
+            p.move(-6, 0);
+            grid.update(p);
+        } else if ((bits & InputRecording.RIGHT) != 0) {
+            p.move(+6, 0);
+            grid.update(p);
         }
     }
 
     private void playerBullets() {
-        List<Bullet> remove = new ArrayList<Bullet>();
-        for (int i = 0; i < playerBullets.size(); i++) {
-            if (playerBullets.get(i).isAlive() && playerBullets.get(i).getHitBox().intersects(SCREEN_BOUNDS)) {
-                playerBullets.get(i).move();
-                for (Hittable t : targets) {
-                    if (t != playerBullets.get(i)) {
-                        if (t.isHit(playerBullets.get(i))) {
-                            playerScore += t.getPoints();
-                            playerBullets.get(i).destroy();
-                        }
-                    }
+        int i = 0;
+        while (i < playerBullets.size()) {
+            Bullet b = playerBullets.get(i);
+            if (b.isAlive() && b.isOnScreen()) {
+                b.move();
+                Hittable t = firstTarget(b);
+                if (t != null && t.isHit(b)) {
+                    playerScore += t.getPoints();
+                    b.destroy();
                 }
+                i++;
             } else {
-                remove.add(playerBullets.get(i));
+                playerBullets.release(i);
             }
         }
-        playerBullets.removeAll(remove);
     }
 
     private void enemyBullets() {
-        List<Bullet> remove = new ArrayList<Bullet>();
-        for (int i = 0; i < enemyBullets.size(); i++) {
+        int i = 0;
+        while (i < enemyBullets.size()) {
             Bullet b = enemyBullets.get(i);
-            if (b.isAlive() && b.getHitBox().intersects(SCREEN_BOUNDS)) {
+            if (b.isAlive() && b.isOnScreen()) {
                 b.move();
-                for (Hittable t : targets) {
-                    if (t != b) {
-                        if (t.isHit(b)) {
-                            if (t.isPlayer()) {
-                                playerLives--;
-                                pause = true;
+                Hittable t = firstTarget(b);
+                if (t != null && t.isHit(b)) {
+                    if (t.isPlayer()) {
+                        playerLives--;
+                        pause = true;
+                        if (DEATH_EVENT.isEnabled()) {
+                            PlayerDeathEvent death = new PlayerDeathEvent();
+                            if (death.shouldCommit()) {
+                                death.tick = tickCount;
+                                death.level = currentLevel;
+                                death.livesLeft = playerLives;
+                                death.commit();
                             }
-                            b.destroy();
                         }
                     }
+                    b.destroy();
                 }
+                i++;
             } else {
-                remove.add(b);
+                enemyBullets.release(i);
             }
         }
-        enemyBullets.removeAll(remove);
     }
 
-    public static Rectangle2D getScreenBounds() {
-        return SCREEN_BOUNDS;
+    /**
+     * Sweeps the bullet's last move against the targets sharing its grid cells.
+     *
+     * @return the target the bullet reached first, or null
+     */
+    private Hittable firstTarget(Bullet b) {
+        candidates.clear();
+        grid.query(b.getSweptMinX(), b.getSweptMinY(), b.getSweptMaxX(), b.getSweptMaxY(), candidates);
+        Hittable first = null;
+        double firstTime = Collision.MISS;
+        for (int i = 0; i < candidates.size(); i++) {
+            Hittable t = candidates.get(i);
+            if (t.isPlayer() && b.isUpward()) {
+                continue; // the player's own shots start inside its ship
+            }
+            collisionTests++;
+            double time = t.timeOfImpact(b);
+            if (time < firstTime) {
+                firstTime = time;
+                first = t;
+            }
+        }
+        return first;
+    }
+
+    private void buildGrid() {
+        grid.clear();
+        if (currentLevel < noLevels) {
+            level[currentLevel].register(grid);
+        }
+        grid.insert(player);
+        if (player2 != null) {
+            grid.insert(player2);
+        }
+    }
+
+    public static HitBox getScreenBounds() {
+        return new HitBox(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
     }
 
     @Override
@@ -128,23 +389,43 @@ public class SpaceInvadersGame implements Game {
 
     @Override
     public void startNewGame() {
-        targets = new ArrayList<Hittable>();
+        if (!deterministic) {
+            seed = System.nanoTime();
+        }
+        rand = new GameRandom(seed);
+        currentLevel = 0;
+        deepestLevel = 0;
+        tickCount = 0;
+        pause = true;
+        pauseToggled = false;
+        if (recording != null) {
+            recording.restart(seed, levelConfigs);
+        }
+        grid = new SpatialGrid(SCREEN_WIDTH, SCREEN_HEIGHT);
+        candidates = new ArrayList<Hittable>();
         playerLives = 3;
         playerScore = 0;
-        playerBullets = new ArrayList<Bullet>();
-        enemyBullets = new ArrayList<Bullet>();
-        player = new Player();
-        level = new Level[5];
-        level[0] = new Level(0.5, 3, 10, this);
-        level[1] = new Level(1, 4, 11, this);
-        level[2] = new Level(1.5, 5, 12, this);
-        level[3] = new Level(2, 5, 14, this);
-        level[4] = new Level(2.5, 5, 16, this);
+        playerBullets = new BulletPool(MAX_BULLETS);
+        enemyBullets = new BulletPool(MAX_BULLETS);
+        if (players == 2) {
+            int centre = 400 - Player.SHIP_SCALE * 8;
+            player = new Player(centre - COOP_SPACING);
+            player2 = new Player(centre + COOP_SPACING);
+        } else {
+            player = new Player();
+        }
+        level = new Level[noLevels];
+        for (int i = 0; i < noLevels; i++) {
+            level[i] = new Level(levelConfigs[i], this);
+        }
+        buildGrid();
+        generation++;
+        publishFrame();
     }
 
     @Override
     public boolean isLevelFinished() {
-        if (currentLevel < NO_LEVELS) {
+        if (currentLevel < noLevels) {
             int noShips = level[currentLevel].getShipsRemaining();
             return level[currentLevel].getBottomY() >= BUNKER_TOP || noShips == 0;
         } else {
@@ -154,32 +435,183 @@ public class SpaceInvadersGame implements Game {
 
     @Override
     public boolean isPlayerAlive() {
-        return player.isAlive();
+        return player.isAlive() && (player2 == null || player2.isAlive());
     }
 
+    /**
+     * Puts every ship back at its start, as in co-op both restart together.
+     */
     @Override
     public void resetDestroyedPlayer() {
-        System.out.println("Resetting player");
         player.resetDestroyed();
-        playerBullets = new ArrayList<Bullet>();
-        enemyBullets = new ArrayList<Bullet>();
-        System.out.println(enemyBullets.size());
+        grid.update(player);
+        if (player2 != null) {
+            player2.resetDestroyed();
+            grid.update(player2);
+        }
+        playerBullets.clear();
+        enemyBullets.clear();
+        publishFrame();
     }
 
     @Override
     public void moveToNextLevel() {
+        if (LEVEL_EVENT.isEnabled()) {
+            LevelTransitionEvent event = new LevelTransitionEvent();
+            if (event.shouldCommit()) {
+                event.fromLevel = currentLevel;
+                event.toLevel = currentLevel + 1;
+                event.shipsRemaining = getShipsRemaining();
+                event.score = playerScore;
+                event.commit();
+            }
+        }
         pause = true;
         currentLevel++;
+        deepestLevel = Math.max(deepestLevel, currentLevel);
         player.resetDestroyed();
-        playerBullets = new ArrayList<Bullet>();
-        enemyBullets = new ArrayList<Bullet>();
+        if (player2 != null) {
+            player2.resetDestroyed();
+        }
+        buildGrid();
+        playerBullets.clear();
+        enemyBullets.clear();
+        generation++;
+        publishFrame();
     }
 
     @Override
     public boolean isGameOver() {
-        return !(playerLives > 0 && currentLevel <= NO_LEVELS);
+        return !(playerLives > 0 && currentLevel <= noLevels);
+    }
+
+
+    public void setTickRate(int ticksPerSecond) {
+        timestep.setTicksPerSecond(ticksPerSecond);
     }
 
+    /**
+     * @return how far rendering is between the last tick and the next, from 0 to 1;
+     * 1 while paused so that nothing is drawn between positions
+     */
+    public double getInterpolation() {
+        return isPaused() ? 1 : timestep.getAlpha();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * @return the size a {@link GameSnapshot} needs to hold any state of this game
+     */
+    public int getSnapshotCapacity() {
+        int levelSize = 0;
+        for (int i = 0; i < noLevels; i++) {
+            levelSize = Math.max(levelSize, level[i].snapshotSize());
+        }
+        return 8 + 8 + 8 + 4 + 1 + 2 + 1 + players * Player.SNAPSHOT_BYTES
+                + playerBullets.snapshotSize() + enemyBullets.snapshotSize() + levelSize;
+    }
+
+    /**
+     * Writes the whole world state into the snapshot, replacing its contents. Only the
+     * current level is saved: earlier levels are over and later ones are still as
+     * built, which {@link #restore(GameSnapshot)} relies on.
+     */
+    public void save(GameSnapshot snapshot) {
+        ByteBuffer out = snapshot.beginWrite(tickCount);
+        out.putLong(tickCount);
+        out.putLong(seed);
+        out.putLong(rand.getState());
+        out.putInt(playerScore);
+        out.put((byte) playerLives);
+        out.putShort((short) currentLevel);
+        out.put((byte) ((pause ? 1 : 0) | (pauseToggled ? 2 : 0)));
+        player.save(out);
+        if (player2 != null) {
+            player2.save(out);
+        }
+        playerBullets.save(out);
+        enemyBullets.save(out);
+        if (currentLevel < noLevels) {
+            level[currentLevel].save(out);
+        }
+        snapshot.endWrite();
+    }
+
+    /**
+     * Puts the world back into the state held by the snapshot. The snapshot must come
+     * from a game with the same levels. Levels after the snapshot's that were played
+     * since are rebuilt, as the timeline that played them is discarded.
+     */
+    public void restore(GameSnapshot snapshot) {
+        ByteBuffer in = snapshot.beginRead();
+        tickCount = in.getLong();
+        seed = in.getLong();
+        rand.setState(in.getLong());
+        playerScore = in.getInt();
+        playerLives = in.get();
+        int savedLevel = in.getShort();
+        if (savedLevel > noLevels) {
+            throw new IllegalArgumentException("Snapshot is of level " + savedLevel + " of " + noLevels);
+        }
+        if (savedLevel != currentLevel) {
+            generation++;
+        }
+        currentLevel = savedLevel;
+        int flags = in.get();
+        pause = (flags & 1) != 0;
+        pauseToggled = (flags & 2) != 0;
+        player.restore(in);
+        if (player2 != null) {
+            player2.restore(in);
+        }
+        playerBullets.restore(in);
+        enemyBullets.restore(in);
+        if (currentLevel < noLevels) {
+            level[currentLevel].restore(in);
+        }
+        for (int i = currentLevel + 1; i <= deepestLevel && i < noLevels; i++) {
+            level[i].reset();
+        }
+        deepestLevel = currentLevel;
+        buildGrid();
+        publishFrame();
+    }
+
+    /**
+     * Starts recording the input of every tick. Call it before the first tick of a
+     * game; every new game restarts the recording from its first tick.
+     */
+    public InputRecording startRecording() {
+        recording = new InputRecording(seed, levelConfigs);
+        return recording;
+    }
+
+    public InputRecording getRecording() {
+        return recording;
+    }
+
+    public int getShipsRemaining() {
+        return currentLevel < noLevels ? level[currentLevel].getShipsRemaining() : 0;
+    }
+
+    public int getCurrentLevel() {
+        return currentLevel;
+    }
+
+    public int getLevelCount() {
+        return noLevels;
+    }
 
     public int getScreenWidth() {
         return SCREEN_WIDTH;
@@ -193,18 +625,45 @@ public class SpaceInvadersGame implements Game {
         return player;
     }
 
-    public List<Bullet> getBullets() {
-        ArrayList<Bullet> bullets = new ArrayList<Bullet>();
-        bullets.addAll(playerBullets);
-        bullets.addAll(enemyBullets);
-        return bullets;
+    /**
+     * @param index 0 for the first player, 1 for the second in co-op games
+     */
+    public Player getShip(int index) {
+        return index == 0 ? player : player2;
+    }
+
+    public int getPlayerCount() {
+        return players;
+    }
+
+    /**
+     * @return the clock that turns real time into ticks for {@link #updateGame()}, also
+     * used by drivers that run ticks themselves so interpolation stays correct
+     */
+    public FixedTimestep getTimestep() {
+        return timestep;
+    }
+
+    public BulletPool getPlayerBullets() {
+        return playerBullets;
+    }
+
+    public BulletPool getEnemyBullets() {
+        return enemyBullets;
     }
 
     public List<EnemyShip> getEnemyShips() {
         return level[currentLevel].getEnemyShips();
     }
 
-    public List<Rectangle2D> getBunkers() {
+    public Bunker[] getBunkers() {
         return level[currentLevel].getBunkers();
     }
+
+    /**
+     * @return the level being played, or null once the last one is over
+     */
+    Level getLevel() {
+        return currentLevel < noLevels ? level[currentLevel] : null;
+    }
 }
@@ -0,0 +1,146 @@
+package si.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over the playfield used as the collision broadphase.
+ * Hittables register once and are only re-bucketed when they move, so a
+ * bullet only has to test the entities sharing the cells it overlaps.
+ */
+public class SpatialGrid {
+    public static final int CELL_SIZE = 32;
+    private int cols;
+    private int rows;
+    private List<List<Entry>> cells;
+    private Map<Hittable, Entry> entries;
+    private int queries; // stamped on each entry a query returns, so it is returned once
+
+    /**
+     * A registered entity and the cells it is stored in.
+     */
+    private static final class Entry {
+        final Hittable hittable;
+        int minCol, minRow, maxCol, maxRow;
+        int query; // the last query that returned this entry
+
+        Entry(Hittable hittable) {
+            this.hittable = hittable;
+        }
+    }
+
+    public SpatialGrid(int width, int height) {
+        cols = (width + CELL_SIZE - 1) / CELL_SIZE;
+        rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+        cells = new ArrayList<List<Entry>>(cols * rows);
+        for (int i = 0; i < cols * rows; i++) {
+            cells.add(new ArrayList<Entry>(4));
+        }
+        entries = new IdentityHashMap<Hittable, Entry>();
+    }
+
+    public void insert(Hittable h) {
+        if (entries.containsKey(h)) {
+            update(h);
+            return;
+        }
+        Entry e = new Entry(h);
+        computeRange(e);
+        entries.put(h, e);
+        add(e);
+    }
+
+    public void update(Hittable h) {
+        Entry e = entries.get(h);
+        if (e == null) {
+            insert(h);
+            return;
+        }
+        int minCol = e.minCol, minRow = e.minRow, maxCol = e.maxCol, maxRow = e.maxRow;
+        computeRange(e);
+        if (e.minCol != minCol || e.minRow != minRow || e.maxCol != maxCol || e.maxRow != maxRow) {
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    cells.get(r * cols + c).remove(e);
+                }
+            }
+            add(e);
+        }
+    }
+
+    public void remove(Hittable h) {
+        Entry e = entries.remove(h);
+        if (e != null) {
+            for (int r = e.minRow; r <= e.maxRow; r++) {
+                for (int c = e.minCol; c <= e.maxCol; c++) {
+                    cells.get(r * cols + c).remove(e);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (List<Entry> cell : cells) {
+            cell.clear();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Adds every registered entity stored in a cell overlapped by the given box to out.
+     * Each entity is added at most once, whatever number of those cells it spans; the
+     * exact overlap test is left to the caller.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<Hittable> out) {
+        int minCol = clampCol(minX), maxCol = clampCol(maxX);
+        int minRow = clampRow(minY), maxRow = clampRow(maxY);
+        if (++queries == 0) {
+            // wrapped around: forget the old stamps so none can match a new query
+            for (Entry e : entries.values()) {
+                e.query = 0;
+            }
+            queries = 1;
+        }
+        int query = queries;
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                List<Entry> cell = cells.get(r * cols + c);
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry e = cell.get(i);
+                    if (e.query != query) {
+                        e.query = query;
+                        out.add(e.hittable);
+                    }
+                }
+            }
+        }
+    }
+
+    private void add(Entry e) {
+        for (int r = e.minRow; r <= e.maxRow; r++) {
+            for (int c = e.minCol; c <= e.maxCol; c++) {
+                cells.get(r * cols + c).add(e);
+            }
+        }
+    }
+
+    private void computeRange(Entry e) {
+        Hittable h = e.hittable;
+        e.minCol = clampCol(h.getMinX());
+        e.minRow = clampRow(h.getMinY());
+        e.maxCol = clampCol(h.getMaxX());
+        e.maxRow = clampRow(h.getMaxY());
+    }
+
+    private int clampCol(double x) {
+        int c = (int) Math.floor(x / CELL_SIZE);
+        return c < 0 ? 0 : (c >= cols ? cols - 1 : c);
+    }
+
+    private int clampRow(double y) {
+        int r = (int) Math.floor(y / CELL_SIZE);
+        return r < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
@@ -1,16 +1,17 @@
 package si.model;
 //敌人集群
-import javafx.geometry.Rectangle2D;
-
 import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 敌人集群类，负责管理一群敌人飞船的创建、移动、状态更新等行为
  * 实现Movable接口，具备移动能力
+ * 飞船只保存相对集群原点的偏移量，因此整个集群移动只需更新原点坐标
+ * 集群作为一个整体注册到空间网格中，子弹命中时按行列直接定位到可能被击中的飞船
  */
-public class Swarm implements Movable {
+public class Swarm implements Movable, Hittable {
     // 存储所有敌人飞船的列表（用于统一管理存活的敌人）
     private List<EnemyShip> ships;
     // 移动方向标志：true表示向右移动，false表示向左移动
@@ -19,6 +20,9 @@ public class Swarm implements Movable {
     private double x = 50;
     // 集群整体的y坐标（左上角基准点）
     private double y = 40;
+    // 本次tick开始时的原点坐标（用于绘制时在两次tick之间插值）
+    private double prevX = x;
+    private double prevY = y;
     // 敌人飞船之间的间距（像素）
     private int space = 30;
     // 二维数组存储敌人飞船（按行列网格排列，方便按位置索引访问）
@@ -35,6 +39,26 @@ public class Swarm implements Movable {
     private double moveY;
     // 游戏主实例引用（用于获取屏幕尺寸等游戏参数）
     private SpaceInvadersGame game;
+    // 碰撞检测用的空间网格（集群移动后需要在网格中更新位置）
+    private SpatialGrid grid;
+    // 最近一次isHit调用中被击中飞船的分值
+    private int lastHitPoints;
+    // 最近一次查找中子弹最先碰到的飞船的碰撞时刻
+    private double firstImpact;
+    // 单个飞船的最大宽度和高度（用于按行列定位候选飞船）
+    private static final int MAX_SHIP_WIDTH = 10 * EnemyShip.SHIP_SCALE;
+    private static final int MAX_SHIP_HEIGHT = 8 * EnemyShip.SHIP_SCALE;
+    // 每列存活的飞船数量
+    private int[] aliveInCol;
+    // 每列最底部存活飞船所在的行（整列死亡时为-1）
+    private int[] bottomRow;
+    // 最左/最右存活列（全部死亡时分别为cols和-1）
+    private int leftCol;
+    private int rightCol;
+    // 整个集群最底部存活飞船所在的行（全部死亡时为-1）
+    private int bottomMostRow;
+    // 存活飞船总数
+    private int shipsRemaining;
 
     /**
      * 敌人集群的构造方法
@@ -60,35 +84,132 @@ public class Swarm implements Movable {
                 // 根据行索引判断敌人类型（A、B、C型交替）
                 if (i % 5 == 0) {
                     // 第0、5、10...行创建A型敌人
-                    a = new EnemyShip((int) x + (1 + space) * j, (int) y + i * space, AlienType.A);
+                    a = new EnemyShip(this, i, j, (1 + space) * j, i * space, AlienType.A);
                 } else if (i % 5 == 1 || i % 5 == 2) {
                     // 第1、2、6、7...行创建B型敌人
-                    a = new EnemyShip((int) x + (1 + space) * j, (int) y + i * space, AlienType.B);
+                    a = new EnemyShip(this, i, j, (1 + space) * j, i * space, AlienType.B);
                 } else {
                     // 其他行创建C型敌人
-                    a = new EnemyShip((int) x + (1 + space) * j, (int) y + i * space, AlienType.C);
+                    a = new EnemyShip(this, i, j, (1 + space) * j, i * space, AlienType.C);
                 }
                 // 将创建的敌人添加到列表和网格中
                 ships.add(a);
                 shipGrid[i][j] = a;
             }
         }
+        // 初始化列统计信息，之后只在飞船死亡时增量更新
+        aliveInCol = new int[cols];
+        bottomRow = new int[cols];
+        recomputeStats();
     }
 
     /**
-     * 敌人集群的移动方法
-     * 负责更新所有存活敌人的位置，处理边界碰撞（左右屏幕边缘）并改变方向
+     * 根据每艘飞船的存活状态重新计算存活列表和列统计信息（用于初始化和恢复快照）
      */
-    public void move() {
-        // 收集已死亡的敌人飞船，准备从列表中移除
-        List<EnemyShip> remove = new ArrayList<EnemyShip>();
-        for (EnemyShip s : ships) {
-            if (!s.isAlive()) {
-                remove.add(s);
+    private void recomputeStats() {
+        ships.clear();
+        shipsRemaining = 0;
+        leftCol = cols;
+        rightCol = -1;
+        bottomMostRow = -1;
+        for (int j = 0; j < cols; j++) {
+            aliveInCol[j] = 0;
+            bottomRow[j] = -1;
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (shipGrid[i][j].isAlive()) {
+                    ships.add(shipGrid[i][j]);
+                    shipsRemaining++;
+                    aliveInCol[j]++;
+                    bottomRow[j] = i;
+                    leftCol = Math.min(leftCol, j);
+                    rightCol = Math.max(rightCol, j);
+                    bottomMostRow = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return save方法最多写入的字节数
+     */
+    int snapshotSize() {
+        return 4 + 1 + 4 + 5 * 8 + (rows * cols + 7) / 8;
+    }
+
+    /**
+     * 将集群的可变状态写入快照：尺寸、移动状态，以及每艘飞船一位的存活标记
+     * 列统计信息可由存活标记推导，因此不写入
+     * @param out 快照缓冲区
+     */
+    void save(ByteBuffer out) {
+        out.putShort((short) rows);
+        out.putShort((short) cols);
+        out.put((byte) (direction ? 1 : 0));
+        out.putInt(count);
+        out.putDouble(x);
+        out.putDouble(y);
+        out.putDouble(prevX);
+        out.putDouble(prevY);
+        out.putDouble(moveX);
+        int bits = 0;
+        int n = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (shipGrid[i][j].isAlive()) {
+                    bits |= 1 << n;
+                }
+                if (++n == 8) {
+                    out.put((byte) bits);
+                    bits = 0;
+                    n = 0;
+                }
             }
         }
-        ships.removeAll(remove);
+        if (n > 0) {
+            out.put((byte) bits);
+        }
+    }
 
+    /**
+     * 从快照恢复集群状态，快照必须来自相同尺寸的集群
+     * @param in 快照缓冲区
+     */
+    void restore(ByteBuffer in) {
+        int r = in.getShort();
+        int c = in.getShort();
+        if (r != rows || c != cols) {
+            throw new IllegalArgumentException("Snapshot swarm is " + r + "x" + c + ", expected " + rows + "x" + cols);
+        }
+        direction = in.get() != 0;
+        count = in.getInt();
+        x = in.getDouble();
+        y = in.getDouble();
+        prevX = in.getDouble();
+        prevY = in.getDouble();
+        moveX = in.getDouble();
+        int bits = 0;
+        int n = 8;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (n == 8) {
+                    bits = in.get();
+                    n = 0;
+                }
+                shipGrid[i][j].setAlive((bits & (1 << n++)) != 0);
+            }
+        }
+        recomputeStats();
+    }
+
+    /**
+     * 敌人集群的移动方法
+     * 负责更新所有存活敌人的位置，处理边界碰撞（左右屏幕边缘）并改变方向
+     */
+    public void move() {
+        prevX = x;
+        prevY = y;
         // 控制移动频率：每累计25次tick才执行一次移动（避免移动过快）
         if (count % 25 == 0) {
             // 计算当前x方向的移动量（根据方向判断正负）
@@ -111,40 +232,194 @@ public class Swarm implements Movable {
                     moveX += 0.25;
                 }
             }
-            // 更新集群整体的位置坐标
+            // 更新集群整体的位置坐标（飞船位置由原点加偏移量计算，无需逐个移动）
             y = y + cY;
             x = x + cX;
-            // 让所有存活的敌人飞船按计算的移动量移动
-            for (EnemyShip s : ships) {
-                s.move(cX, cY);
+            if (grid != null) {
+                grid.update(this);
             }
         }
     }
 
     /**
-     * 获取集群调整后的x坐标（考虑左侧已完全死亡的列，避免边界判断错误）
-     * @return 调整后的左侧x坐标
+     * 将集群注册到空间网格中，之后移动时会自动更新网格
+     * @param g 碰撞检测用的空间网格
      */
-    private int getAdjustedX() {
-        int deadColCount = 0; // 左侧完全死亡的列数
-        // 从左到右检查每一列
-        for (int i = 0; i < cols; i++) {
-            int deadInCol = 0; // 当前列中死亡的敌人数量
-            for (int j = 0; j < rows; j++) {
-                if (!shipGrid[j][i].isAlive()) {
-                    deadInCol++;
+    public void register(SpatialGrid g) {
+        grid = g;
+        grid.insert(this);
+    }
+
+    /**
+     * 判断子弹是否击中集群中的飞船
+     * 只有子弹本次移动路径上最先碰到的飞船会被击毁
+     * @param b 子弹
+     * @return 是否击中了飞船
+     */
+    public boolean isHit(Bullet b) {
+        lastHitPoints = 0;
+        EnemyShip s = firstShipHit(b);
+        if (s != null && s.isHit(b)) {
+            lastHitPoints = s.getPoints();
+            shipDestroyed(s.getRow(), s.getCol());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 子弹本次移动路径上最先碰到飞船的时刻，未碰到时为Collision.MISS
+     */
+    public double timeOfImpact(Bullet b) {
+        firstShipHit(b);
+        return firstImpact;
+    }
+
+    /**
+     * 根据子弹本次移动扫过的区域直接计算可能重叠的行列范围，只检查这些位置上存活的飞船
+     * @param b 子弹
+     * @return 路径上最先碰到的飞船，没有时返回null
+     */
+    private EnemyShip firstShipHit(Bullet b) {
+        int c0 = Math.max(0, (int) Math.floor((b.getSweptMinX() - x - MAX_SHIP_WIDTH) / (1 + space)));
+        int c1 = Math.min(cols - 1, (int) Math.floor((b.getSweptMaxX() - x) / (1 + space)));
+        int r0 = Math.max(0, (int) Math.floor((b.getSweptMinY() - y - MAX_SHIP_HEIGHT) / space));
+        int r1 = Math.min(rows - 1, (int) Math.floor((b.getSweptMaxY() - y) / space));
+        EnemyShip first = null;
+        firstImpact = Collision.MISS;
+        for (int i = r0; i <= r1; i++) {
+            for (int j = c0; j <= c1; j++) {
+                EnemyShip s = shipGrid[i][j];
+                if (s.isAlive()) {
+                    double t = s.timeOfImpact(b);
+                    if (t < firstImpact) {
+                        firstImpact = t;
+                        first = s;
+                    }
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * 飞船死亡时增量更新列统计信息，避免每次查询都扫描整个网格
+     * @param r 死亡飞船所在行
+     * @param c 死亡飞船所在列
+     */
+    private void shipDestroyed(int r, int c) {
+        ships.remove(shipGrid[r][c]);
+        shipsRemaining--;
+        aliveInCol[c]--;
+        if (bottomRow[c] == r) {
+            // 从该行向上查找新的最底部存活飞船
+            int j = r - 1;
+            while (j >= 0 && !shipGrid[j][c].isAlive()) {
+                j--;
+            }
+            bottomRow[c] = j;
+            if (r == bottomMostRow) {
+                bottomMostRow = -1;
+                for (int i = 0; i < cols; i++) {
+                    bottomMostRow = Math.max(bottomMostRow, bottomRow[i]);
                 }
             }
-            // 如果当前列所有敌人都死亡，则计数+1
-            if (deadInCol == rows) {
-                deadColCount++;
-            } else {
-                // 遇到非全死亡列则停止检查（只统计连续的左侧全死列）
-                break;
+        }
+        if (aliveInCol[c] == 0) {
+            while (leftCol < cols && aliveInCol[leftCol] == 0) {
+                leftCol++;
+            }
+            while (rightCol >= 0 && aliveInCol[rightCol] == 0) {
+                rightCol--;
             }
         }
+        // 死亡飞船可能使集群包围盒变小
+        if (grid != null) {
+            grid.update(this);
+        }
+    }
+
+    /**
+     * 集群本身始终视为存活，单个飞船的存活状态由飞船自己维护
+     */
+    public boolean isAlive() {
+        return true;
+    }
+
+    /**
+     * @return 最近一次isHit调用中被击中飞船的分值
+     */
+    public int getPoints() {
+        return lastHitPoints;
+    }
+
+    public boolean isPlayer() {
+        return false;
+    }
+
+    /**
+     * 包围盒的左边界（最左存活列）
+     */
+    public double getMinX() {
+        return rightCol < 0 ? x : x + leftCol * (1 + space);
+    }
+
+    public double getMinY() {
+        return y;
+    }
+
+    /**
+     * 包围盒的右边界（最右存活列加上飞船最大宽度）
+     */
+    public double getMaxX() {
+        return rightCol < 0 ? x : x + rightCol * (1 + space) + MAX_SHIP_WIDTH;
+    }
+
+    /**
+     * 包围盒的下边界（最底部存活行加上飞船最大高度）
+     */
+    public double getMaxY() {
+        return bottomMostRow < 0 ? y : y + bottomMostRow * space + MAX_SHIP_HEIGHT;
+    }
+
+    /**
+     * @return 集群原点的x坐标
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return 集群原点的y坐标
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @param alpha 插值系数（0为上次tick开始时的位置，1为当前位置）
+     * @return 插值后的原点x坐标
+     */
+    public double getRenderX(double alpha) {
+        return prevX + (x - prevX) * alpha;
+    }
+
+    /**
+     * @param alpha 插值系数（0为上次tick开始时的位置，1为当前位置）
+     * @return 插值后的原点y坐标
+     */
+    public double getRenderY(double alpha) {
+        return prevY + (y - prevY) * alpha;
+    }
+
+    /**
+     * 获取集群调整后的x坐标（考虑左侧已完全死亡的列，避免边界判断错误）
+     * @return 调整后的左侧x坐标
+     */
+    private int getAdjustedX() {
+        // 左侧完全死亡的列数即最左存活列的索引
         // 调整后的x = 原始x + 死亡列数 * 间距（跳过死亡列的宽度）
-        return (int) x + deadColCount * space;
+        return (int) x + leftCol * space;
     }
 
     /**
@@ -152,18 +427,12 @@ public class Swarm implements Movable {
      * @return 集群最底部的y坐标
      */
     public int getBottomY() {
-        double bottomY = 0;
-        // 遍历所有底部存活的敌人飞船
-        for (EnemyShip e : getBottom()) {
-            Rectangle2D hitBox = e.getHitBox(); // 获取敌人的碰撞盒
-            // 计算敌人底部的y坐标（敌人y + 碰撞盒高度）
-            double currentBottom = e.getY() + hitBox.getHeight();
-            // 记录最大的底部y坐标（最下方的敌人）
-            if (currentBottom > bottomY) {
-                bottomY = currentBottom;
-            }
+        if (bottomMostRow < 0) {
+            return 0;
         }
-        return (int) bottomY;
+        // 最底部存活行的飞船y + 碰撞盒高度（同一行的飞船类型相同）
+        EnemyShip e = shipGrid[bottomMostRow][0];
+        return e.getY() + EnemyShip.SHIP_SCALE * e.getType().getHeight();
     }
 
     /**
@@ -171,25 +440,9 @@ public class Swarm implements Movable {
      * @return 集群的有效宽度
      */
     private int getWidth() {
-        int validColCount = cols; // 有效列数（初始为总列数）
-        // 从右到左检查每一列
-        for (int i = cols - 1; i >= 0; i--) {
-            int deadInCol = 0; // 当前列中死亡的敌人数量
-            for (int j = 0; j < rows; j++) {
-                if (!shipGrid[j][i].isAlive()) {
-                    deadInCol++;
-                }
-            }
-            // 如果当前列所有敌人都死亡，则有效列数-1
-            if (deadInCol == rows) {
-                validColCount--;
-            } else {
-                // 遇到非全死亡列则停止检查（只统计连续的右侧全死列）
-                break;
-            }
-        }
+        // 有效列数 = 最右存活列索引 + 1（右侧连续的全死列不计入）
         // 集群宽度 = 有效列数 * 间距
-        return validColCount * space;
+        return (rightCol + 1) * space;
     }
 
     /**
@@ -200,33 +453,19 @@ public class Swarm implements Movable {
     }
 
     /**
-     * 获取所有可被击中的对象（即存活的敌人飞船）
-     * @return 可被击中对象的列表
+     * 获取指定列中最底部的存活敌人飞船（用于判断敌人射击逻辑）
+     * @param col 列索引
+     * @return 该列底部存活的敌人，整列死亡时返回null
      */
-    public List<Hittable> getHittable() {
-        // 将EnemyShip列表转换为Hittable接口列表（EnemyShip实现Hittable）
-        return new ArrayList<Hittable>(ships);
+    public EnemyShip getBottomShip(int col) {
+        return bottomRow[col] < 0 ? null : shipGrid[bottomRow[col]][col];
     }
 
     /**
-     * 获取每列中最底部的存活敌人飞船（用于判断敌人射击逻辑）
-     * @return 每列底部存活敌人的列表
+     * @return 集群的列数
      */
-    public List<EnemyShip> getBottom() {
-        List<EnemyShip> bottomShips = new ArrayList<EnemyShip>();
-
-        // 遍历每一列
-        for (int i = 0; i < cols; i++) {
-            boolean found = false;
-            // 从当前列的最底部向上查找第一个存活的敌人
-            for (int j = rows - 1; j >= 0 && !found; j--) {
-                if (shipGrid[j][i].isAlive()) {
-                    found = true;
-                    bottomShips.add(shipGrid[j][i]);
-                }
-            }
-        }
-        return bottomShips;
+    public int getColumns() {
+        return cols;
     }
 
     /**
@@ -237,11 +476,19 @@ public class Swarm implements Movable {
         return new ArrayList<EnemyShip>(ships);
     }
 
+    /**
+     * 存活敌人飞船列表本身（不复制），供包内逐帧读取时避免分配，调用方不得修改
+     * @return 存活敌人飞船的内部列表
+     */
+    List<EnemyShip> getLiveShips() {
+        return ships;
+    }
+
     /**
      * 获取剩余的敌人飞船数量
      * @return 剩余敌人数量
      */
     public int getShipsRemaining() {
-        return ships.size();
+        return shipsRemaining;
     }
 }
\ No newline at end of file
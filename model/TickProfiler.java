@@ -0,0 +1,89 @@
+package si.model;
+
+/**
+ * Times each phase of a tick, and painting, into histograms, and keeps per-tick counts
+ * of entities and collision tests. While disabled it reads no clock and records
+ * nothing, so the game always carries one.
+ */
+public class TickProfiler {
+    public static final int PLAYER_BULLETS = 0;
+    public static final int ENEMY_BULLETS = 1;
+    public static final int LEVEL_MOVE = 2;
+    public static final int MOVE_PLAYER = 3;
+    public static final int PAINT = 4;
+    public static final int PHASES = 5;
+    private static final String[] NAMES = {"playerBullets", "enemyBullets", "level.move", "movePlayer", "paint"};
+    private Histogram[] phases = new Histogram[PHASES];
+    private Histogram entities = new Histogram();
+    private Histogram collisionTests = new Histogram();
+    private boolean enabled;
+
+    public TickProfiler() {
+        for (int i = 0; i < PHASES; i++) {
+            phases[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return the time to pass to the first {@link #lap(int, long)}, 0 while disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the previous mark as the given phase.
+     *
+     * @return the mark for the next phase
+     */
+    public long lap(int phase, long since) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        phases[phase].record(now - since);
+        return now;
+    }
+
+    public void recordTick(int entityCount, int collisionTestCount) {
+        if (enabled) {
+            entities.record(entityCount);
+            collisionTests.record(collisionTestCount);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Histogram getPhase(int phase) {
+        return phases[phase];
+    }
+
+    public static String getPhaseName(int phase) {
+        return NAMES[phase];
+    }
+
+    public Histogram getEntities() {
+        return entities;
+    }
+
+    public Histogram getCollisionTests() {
+        return collisionTests;
+    }
+
+    /**
+     * Empties every histogram, to start a new measurement window.
+     */
+    public void reset() {
+        for (Histogram h : phases) {
+            h.reset();
+        }
+        entities.reset();
+        collisionTests.reset();
+    }
+}
@@ -0,0 +1,143 @@
+package si.net;
+
+import si.model.InputRecording;
+import si.model.InputSource;
+import si.model.SpaceInvadersGame;
+import ucd.comp2011j.engine.Game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Presents a {@link RollbackSession} to the engine as an ordinary game. The session
+ * handles deaths, level changes and the shared pause itself, since they must happen
+ * identically on both sides and again whenever frames are re-simulated, so the engine
+ * is told the game is never paused and never between lives or levels. The screen
+ * draws the session's game, which shows the shared pause as usual.
+ * <p>
+ * Input sampled on a tick the session cannot run, while it waits for the peer, is
+ * kept and merged into the input of the next frame that does run, so a tap during a
+ * stall is not lost.
+ * <p>
+ * A session plays one game; start both instances again to play another.
+ */
+public class NetplayGame implements Game {
+    private RollbackSession session;
+    private SpaceInvadersGame game;
+    private InputSource listener;
+    private boolean pausePressed;
+    private int pendingInput; // sampled on ticks the session could not run yet
+
+    public NetplayGame(RollbackSession session, InputSource listener) {
+        this.session = session;
+        this.game = session.getGame();
+        this.listener = listener;
+    }
+
+    @Override
+    public void updateGame() {
+        int ticks = game.getTimestep().advance(System.nanoTime());
+        try {
+            if (ticks == 0) {
+                session.poll();
+            }
+            for (int i = 0; i < ticks; i++) {
+                runTick(game.getTimestep().getTickEnd(i, ticks));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Netplay connection failed", e);
+        }
+    }
+
+    /**
+     * Samples the input of the tick ending at the given time and offers it, with any
+     * input still pending from stalled ticks, to the session.
+     *
+     * @return whether the session ran a frame
+     */
+    boolean runTick(long tickEnd) throws IOException {
+        listener.beginTick(tickEnd);
+        pendingInput |= sampleInput();
+        if (!session.advance(pendingInput)) {
+            return false;
+        }
+        pendingInput = 0;
+        pausePressed = false;
+        return true;
+    }
+
+    private int sampleInput() {
+        int bits = 0;
+        if (listener.isPressingLeft()) {
+            bits |= InputRecording.LEFT;
+        }
+        if (listener.isPressingRight()) {
+            bits |= InputRecording.RIGHT;
+        }
+        if (listener.isPressingFire()) {
+            bits |= InputRecording.FIRE;
+        }
+        if (pausePressed) {
+            bits |= InputRecording.PAUSE;
+        }
+        return bits;
+    }
+
+    /**
+     * Turns a pause press into input for the next frame, so it reaches both sides.
+     */
+    @Override
+    public void checkForPause() {
+        if (listener.hasPressedPause()) {
+            pausePressed = true;
+            listener.resetPause();
+        }
+    }
+
+    @Override
+    public boolean isPaused() {
+        return false;
+    }
+
+    @Override
+    public void startNewGame() {
+    }
+
+    @Override
+    public boolean isLevelFinished() {
+        return false;
+    }
+
+    @Override
+    public boolean isPlayerAlive() {
+        return true;
+    }
+
+    @Override
+    public void resetDestroyedPlayer() {
+    }
+
+    @Override
+    public void moveToNextLevel() {
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return session.isFinished();
+    }
+
+    @Override
+    public int getPlayerScore() {
+        return game.getPlayerScore();
+    }
+
+    @Override
+    public int getScreenWidth() {
+        return game.getScreenWidth();
+    }
+
+    @Override
+    public int getScreenHeight() {
+        return game.getScreenHeight();
+    }
+}
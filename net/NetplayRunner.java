@@ -0,0 +1,90 @@
+package si.net;
+
+import si.model.FixedTimestep;
+import si.model.GameSnapshot;
+import si.model.InputRecording;
+import si.model.SpaceInvadersGame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+/**
+ * Plays one side of a netplay game headlessly in real time with a simple bot, to try
+ * rollback between two processes. Run player 1 and player 2 with each other's ports;
+ * when both finish they print a checksum of the final state, which must match.
+ * <p>
+ * Usage: NetplayRunner player localPort peerHost peerPort [frames] [latencyMs]
+ */
+public class NetplayRunner {
+    private static final long HANDSHAKE_TIMEOUT = 30000;
+    private static final long SETTLE_TIMEOUT = 5000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("Usage: NetplayRunner player localPort peerHost peerPort [frames] [latencyMs]");
+            System.exit(1);
+        }
+        int player = Integer.parseInt(args[0]);
+        int localPort = Integer.parseInt(args[1]);
+        InetSocketAddress peer = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+        int frames = args.length > 4 ? Integer.parseInt(args[4]) : 3600;
+        int latency = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+
+        try (PeerLink link = new PeerLink(localPort, peer)) {
+            link.setSimulatedLatency(latency);
+            long seed = link.handshake(System.nanoTime(), player == 1, HANDSHAKE_TIMEOUT);
+            SpaceInvadersGame game = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, seed, 2);
+            RollbackSession session = new RollbackSession(game, player - 1, link);
+            FixedTimestep timestep = new FixedTimestep(SpaceInvadersGame.DEFAULT_TICK_RATE, 5);
+            Random bot = new Random(player);
+            int held = 0;
+            long start = System.nanoTime();
+            while (session.getFrame() < frames && !session.isFinished()) {
+                int ticks = timestep.advance(System.nanoTime());
+                for (int i = 0; i < ticks && session.getFrame() < frames; i++) {
+                    if (session.getFrame() % 20 == 0) {
+                        held = bot.nextInt(3) == 0 ? InputRecording.LEFT : InputRecording.RIGHT;
+                        held |= bot.nextBoolean() ? InputRecording.FIRE : 0;
+                    }
+                    int bits = held;
+                    // only the first player resumes, so the two never toggle pause against each other
+                    if (player == 1 && game.isPaused()) {
+                        bits |= InputRecording.PAUSE;
+                    }
+                    session.advance(bits);
+                }
+                if (ticks == 0) {
+                    session.poll();
+                    session.send();
+                }
+                Thread.sleep(1);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            // exchange the last inputs so both sides end on the same confirmed state
+            long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT;
+            while (!session.isSettled() && System.currentTimeMillis() < deadline) {
+                session.poll();
+                session.send();
+                Thread.sleep(5);
+            }
+            boolean settled = session.isSettled();
+            // keep answering for a moment in case the peer still needs our input
+            long linger = System.currentTimeMillis() + 500;
+            while (System.currentTimeMillis() < linger) {
+                session.poll();
+                session.send();
+                Thread.sleep(5);
+            }
+            GameSnapshot state = new GameSnapshot(game.getSnapshotCapacity());
+            game.save(state);
+            System.out.printf("player %d: %d frames in %.1fs, seed %d, score %d, lives %d, level %d%n",
+                    player, session.getFrame(), seconds, seed, game.getPlayerScore(), game.getLives(),
+                    game.getCurrentLevel());
+            System.out.printf("rollbacks %d (%d frames re-simulated, longest %d), stalls %d, sync waits %d, %s%n",
+                    session.getRollbacks(), session.getResimulatedFrames(), session.getLongestRollback(),
+                    session.getStalls(), session.getSyncWaits(), settled ? "settled" : "NOT settled");
+            System.out.printf("state checksum %08x%n", state.checksum());
+        }
+    }
+}
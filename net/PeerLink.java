@@ -0,0 +1,222 @@
+package si.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * UDP connection to the other instance of a netplay game. Every packet carries all of
+ * the sender's inputs the receiver has not acknowledged yet, so lost packets need no
+ * retransmission: the next packet repeats what was missed.
+ * <p>
+ * Packet layout: magic, seed, the sender's current frame and how many frames it sees
+ * the receiver behind, ack (the last frame of the receiver's input the sender has),
+ * first frame, input count, then one byte of InputRecording bits per frame.
+ */
+public class PeerLink implements Closeable {
+    /** Most inputs carried by one packet. */
+    public static final int MAX_INPUTS = 64;
+    private static final int MAGIC = 0x53494E50; // "SINP"
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 2 + 4 + 4 + 1;
+    private static final int PACKET_BYTES = HEADER_BYTES + MAX_INPUTS;
+    private static final int MAX_DELAYED = 256;
+    private DatagramChannel channel;
+    private ByteBuffer sendBuffer = ByteBuffer.allocate(PACKET_BYTES);
+    private ByteBuffer receiveBuffer = ByteBuffer.allocate(PACKET_BYTES);
+    // fields of the last packet received
+    private long seed;
+    private int frame;
+    private int lag;
+    private int ack;
+    private int firstFrame;
+    private int count;
+    private byte[] inputs = new byte[MAX_INPUTS];
+    // outgoing packets held back to simulate latency, released in order
+    private long latencyNanos;
+    private ByteBuffer[] delayed;
+    private long[] releaseAt;
+    private int delayedHead;
+    private int delayedCount;
+
+    /**
+     * @param localPort port to receive on
+     * @param peer      address the other instance receives on
+     */
+    public PeerLink(int localPort, InetSocketAddress peer) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(localPort));
+        channel.connect(peer);
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Holds every outgoing packet back for the given time, to try netplay at realistic
+     * latencies on loopback.
+     */
+    public void setSimulatedLatency(int millis) {
+        latencyNanos = millis * 1000000L;
+        if (latencyNanos > 0 && delayed == null) {
+            delayed = new ByteBuffer[MAX_DELAYED];
+            releaseAt = new long[MAX_DELAYED];
+            for (int i = 0; i < MAX_DELAYED; i++) {
+                delayed[i] = ByteBuffer.allocate(PACKET_BYTES);
+            }
+        }
+    }
+
+    /**
+     * Sends count inputs starting at firstFrame.
+     *
+     * @param frame the sender's current frame
+     * @param lag   how many frames the receiver appears to be behind the sender
+     */
+    public void send(long seed, int frame, int lag, int ack, int firstFrame, byte[] inputs, int count)
+            throws IOException {
+        if (count > MAX_INPUTS) {
+            throw new IllegalArgumentException("At most " + MAX_INPUTS + " inputs per packet: " + count);
+        }
+        ByteBuffer out = sendBuffer;
+        long now = System.nanoTime();
+        if (latencyNanos > 0) {
+            flushDelayed(now);
+            if (delayedCount == MAX_DELAYED) {
+                return; // a full queue behaves like a lost packet
+            }
+            int slot = (delayedHead + delayedCount++) % MAX_DELAYED;
+            out = delayed[slot];
+            releaseAt[slot] = now + latencyNanos;
+        }
+        out.clear();
+        out.putInt(MAGIC);
+        out.putLong(seed);
+        out.putInt(frame);
+        out.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, lag)));
+        out.putInt(ack);
+        out.putInt(firstFrame);
+        out.put((byte) count);
+        out.put(inputs, 0, count);
+        out.flip();
+        if (latencyNanos == 0) {
+            write(out);
+        }
+    }
+
+    private void flushDelayed(long now) throws IOException {
+        while (delayedCount > 0 && releaseAt[delayedHead] <= now) {
+            write(delayed[delayedHead]);
+            delayedHead = (delayedHead + 1) % MAX_DELAYED;
+            delayedCount--;
+        }
+    }
+
+    private void write(ByteBuffer packet) throws IOException {
+        try {
+            channel.write(packet);
+        } catch (PortUnreachableException e) {
+            // the peer is not listening yet; later packets repeat everything
+        }
+    }
+
+    /**
+     * Reads the next waiting packet, if any, making its contents available through the
+     * getters.
+     *
+     * @return false when no valid packet is waiting
+     */
+    public boolean receive() throws IOException {
+        if (latencyNanos > 0) {
+            flushDelayed(System.nanoTime());
+        }
+        while (true) {
+            receiveBuffer.clear();
+            try {
+                if (channel.read(receiveBuffer) <= 0) {
+                    return false;
+                }
+            } catch (PortUnreachableException e) {
+                return false;
+            }
+            receiveBuffer.flip();
+            if (receiveBuffer.remaining() < HEADER_BYTES || receiveBuffer.getInt() != MAGIC) {
+                continue;
+            }
+            seed = receiveBuffer.getLong();
+            frame = receiveBuffer.getInt();
+            lag = receiveBuffer.getShort();
+            ack = receiveBuffer.getInt();
+            firstFrame = receiveBuffer.getInt();
+            count = receiveBuffer.get();
+            if (count < 0 || count > receiveBuffer.remaining()) {
+                continue;
+            }
+            receiveBuffer.get(inputs, 0, count);
+            return true;
+        }
+    }
+
+    /**
+     * Exchanges packets until the peer answers. The host's seed is adopted by both sides.
+     *
+     * @param seed    the seed to play with when hosting, ignored otherwise
+     * @param host    whether this instance chooses the seed
+     * @param timeout how long to wait for the peer, in milliseconds
+     * @return the agreed seed
+     */
+    public long handshake(long seed, boolean host, long timeout) throws IOException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long lastSent = 0;
+        while (System.currentTimeMillis() < deadline) {
+            if (System.currentTimeMillis() - lastSent >= 50) {
+                send(host ? seed : 0, 0, 0, -1, 0, inputs, 0);
+                lastSent = System.currentTimeMillis();
+            }
+            if (receive()) {
+                // the guest's hellos carry no seed; the host's packets always do
+                return host ? seed : this.seed;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for peer", e);
+            }
+        }
+        throw new IOException("No answer from peer within " + timeout + "ms");
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    public int getLag() {
+        return lag;
+    }
+
+    public int getAck() {
+        return ack;
+    }
+
+    public int getFirstFrame() {
+        return firstFrame;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getInput(int i) {
+        return inputs[i];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
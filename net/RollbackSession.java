@@ -0,0 +1,246 @@
+package si.net;
+
+import si.model.GameSnapshot;
+import si.model.InputRecording;
+import si.model.SnapshotRing;
+import si.model.SpaceInvadersGame;
+
+import java.io.IOException;
+
+/**
+ * Runs one side of a two-player co-op game over a {@link PeerLink} without input delay.
+ * The local input is applied immediately and the remote player's input is predicted to
+ * repeat the last one received. When the real remote input for a frame turns out to
+ * differ from the prediction, the game is restored to its snapshot from before that
+ * frame and re-simulated up to the present.
+ * <p>
+ * The side that started later sees its peer further ahead than the peer sees it, and
+ * would do all of the rolling back; the side ahead therefore waits a frame now and then
+ * until both see each other equally far behind.
+ * <p>
+ * Both sides stay identical because the game is deterministic for a given seed and
+ * input, and both apply the same rules between ticks for deaths and level changes.
+ */
+public class RollbackSession {
+    /** Most frames the local side may run ahead of the last remote input received. */
+    public static final int MAX_PREDICTION = 12;
+    // how often the side ahead may wait a frame to let the other catch up
+    private static final int SYNC_INTERVAL = 8;
+    private static final int HISTORY = 64; // frames of input kept, a power of two
+    private static final int MASK = HISTORY - 1;
+    // buttons that are held down, and so predicted to stay as they are
+    private static final int HELD = InputRecording.LEFT | InputRecording.RIGHT | InputRecording.FIRE;
+    private SpaceInvadersGame game;
+    private int localPlayer;
+    private PeerLink link;
+    private long seed;
+    private SnapshotRing snapshots;
+    private int[] localInputs = new int[HISTORY];
+    private int[] remoteInputs = new int[HISTORY];
+    private int[] usedRemote = new int[HISTORY]; // remote input each frame was last simulated with
+    private byte[] packet = new byte[PeerLink.MAX_INPUTS];
+    private int frame; // the next frame to simulate
+    private int remoteConfirmed = -1; // last frame of remote input received, all earlier ones too
+    private int remoteAck = -1; // last frame of local input the peer has received
+    private int remoteFrame; // latest frame the peer has reported reaching
+    private int remoteLag; // how far behind the peer last saw this side
+    private int rollbackFrom = Integer.MAX_VALUE;
+    private long rollbacks;
+    private long resimulatedFrames;
+    private int longestRollback;
+    private long stalls;
+    private long syncWaits;
+
+    /**
+     * @param game        a new game created with
+     *                    {@link SpaceInvadersGame#SpaceInvadersGame(si.model.LevelConfig[], long, int)}
+     *                    for two players, with the seed agreed with the peer
+     * @param localPlayer 0 if this side controls the first ship, 1 for the second
+     */
+    public RollbackSession(SpaceInvadersGame game, int localPlayer, PeerLink link) {
+        if (game.getPlayerCount() != 2) {
+            throw new IllegalArgumentException("Netplay needs a two-player game");
+        }
+        this.game = game;
+        this.localPlayer = localPlayer;
+        this.link = link;
+        this.seed = game.getSeed();
+        snapshots = new SnapshotRing(MAX_PREDICTION + 2, game.getSnapshotCapacity());
+    }
+
+    /**
+     * Runs the next frame with the given local input, after applying any remote input
+     * that has arrived.
+     *
+     * @param localInput InputRecording bits of the local player for this frame
+     * @return false if the frame could not run, either because the game has finished or
+     * because the remote side is too far behind; the input was then not used
+     */
+    public boolean advance(int localInput) throws IOException {
+        poll();
+        if (isFinished() || frame - remoteConfirmed > MAX_PREDICTION || frame - remoteAck >= HISTORY) {
+            if (!isFinished()) {
+                stalls++;
+            }
+            send();
+            return false;
+        }
+        // each side sees the other behind by the latency plus or minus the difference
+        // in their frames, so half the difference between the two views is how far ahead this side is
+        if (frame % SYNC_INTERVAL == 0 && (frame - remoteFrame) - remoteLag >= 2) {
+            syncWaits++;
+            send();
+            return false;
+        }
+        localInputs[frame & MASK] = localInput;
+        snapshots.push(game);
+        simulate(frame);
+        frame++;
+        send();
+        return true;
+    }
+
+    /**
+     * Applies the remote input received so far, rolling back if it contradicts the
+     * predictions already simulated. Packets carrying another seed, such as late ones
+     * from an earlier session on the same port, are ignored.
+     */
+    public void poll() throws IOException {
+        while (link.receive()) {
+            if (link.getSeed() != seed) {
+                continue;
+            }
+            remoteAck = Math.max(remoteAck, link.getAck());
+            if (link.getFrame() >= remoteFrame) {
+                remoteFrame = link.getFrame();
+                remoteLag = link.getLag();
+            }
+            int first = link.getFirstFrame();
+            for (int i = 0; i < link.getCount(); i++) {
+                int f = first + i;
+                if (f != remoteConfirmed + 1) {
+                    continue; // already have it
+                }
+                int bits = link.getInput(i);
+                remoteInputs[f & MASK] = bits;
+                remoteConfirmed = f;
+                if (f < frame && bits != usedRemote[f & MASK]) {
+                    rollbackFrom = Math.min(rollbackFrom, f);
+                }
+            }
+        }
+        if (rollbackFrom != Integer.MAX_VALUE) {
+            rollback(rollbackFrom);
+            rollbackFrom = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Sends the local input the peer has not acknowledged, also telling it which of its
+     * input has arrived.
+     */
+    public void send() throws IOException {
+        int first = remoteAck + 1;
+        int count = Math.min(frame - first, PeerLink.MAX_INPUTS);
+        for (int i = 0; i < count; i++) {
+            packet[i] = (byte) localInputs[(first + i) & MASK];
+        }
+        link.send(seed, frame, frame - remoteFrame, remoteConfirmed, first, packet, Math.max(0, count));
+    }
+
+    private void rollback(int from) {
+        int back = snapshots.find(from);
+        GameSnapshot start = back < 0 ? null : snapshots.get(back);
+        if (start == null || start.getTick() != from) {
+            throw new IllegalStateException("No snapshot of frame " + from + " to roll back to");
+        }
+        snapshots.rewind(game, back);
+        int end = frame;
+        for (int f = from; f < end; f++) {
+            if (f > from) {
+                snapshots.push(game);
+            }
+            if (isFinished()) {
+                frame = f; // the corrected game ends earlier than predicted
+                break;
+            }
+            simulate(f);
+        }
+        rollbacks++;
+        resimulatedFrames += end - from;
+        longestRollback = Math.max(longestRollback, end - from);
+    }
+
+    private void simulate(int f) {
+        int remote = predict(f);
+        usedRemote[f & MASK] = remote;
+        int local = localInputs[f & MASK];
+        if (localPlayer == 0) {
+            game.tick(local, remote);
+        } else {
+            game.tick(remote, local);
+        }
+        // the same handling of deaths and level changes as the engine gives a local game
+        if (!game.isPlayerAlive() && !game.isGameOver()) {
+            game.resetDestroyedPlayer();
+        }
+        if (!game.isGameOver() && game.isLevelFinished()) {
+            game.moveToNextLevel();
+        }
+    }
+
+    private int predict(int f) {
+        if (f <= remoteConfirmed) {
+            return remoteInputs[f & MASK];
+        }
+        // pause is a one-off toggle, so it is never predicted to repeat
+        return remoteConfirmed < 0 ? 0 : remoteInputs[remoteConfirmed & MASK] & HELD;
+    }
+
+    public boolean isFinished() {
+        return game.isGameOver() || game.getCurrentLevel() >= game.getLevelCount();
+    }
+
+    /**
+     * @return whether every simulated frame used real remote input and the peer has all
+     * of the local input, so both sides hold the same state
+     */
+    public boolean isSettled() {
+        return remoteConfirmed >= frame - 1 && remoteAck >= frame - 1;
+    }
+
+    public SpaceInvadersGame getGame() {
+        return game;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    public int getRemoteConfirmed() {
+        return remoteConfirmed;
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public long getResimulatedFrames() {
+        return resimulatedFrames;
+    }
+
+    public int getLongestRollback() {
+        return longestRollback;
+    }
+
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * @return frames skipped to let a peer that started later catch up
+     */
+    public long getSyncWaits() {
+        return syncWaits;
+    }
+}
@@ -0,0 +1,219 @@
+package si.sim;
+
+import si.model.GameRandom;
+import si.model.LevelConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many seeded headless games for every combination of level parameters and
+ * player policy, spread across all cores, and prints how each level plays out.
+ * Every game is independent, so each worker task owns its games outright and the
+ * per-task totals are only merged once the tasks finish.
+ *
+ * Usage: BalancingHarness [speeds=0.5,1,1.5,2,2.5] [rows=3,5] [cols=10,16]
+ * [policies=CAMP,SWEEP,RANDOM,TRACK] [games=200] [maxTicks=30000] [seed=1] [threads=N]
+ */
+public class BalancingHarness {
+    private static final int GAMES_PER_TASK = 25;
+
+    /**
+     * Running totals for one level/policy cell of the report.
+     */
+    public static class Stats {
+        private final LevelConfig level;
+        private final PlayerPolicy policy;
+        private int games;
+        private long ticks;
+        private long score;
+        private int cleared;
+
+        public Stats(LevelConfig level, PlayerPolicy policy) {
+            this.level = level;
+            this.policy = policy;
+        }
+
+        void add(GameResult r) {
+            games++;
+            ticks += r.getTicks();
+            score += r.getScore();
+            cleared += r.getLevelsCleared();
+        }
+
+        void merge(Stats s) {
+            games += s.games;
+            ticks += s.ticks;
+            score += s.score;
+            cleared += s.cleared;
+        }
+
+        public double getMeanTicks() {
+            return games == 0 ? 0 : (double) ticks / games;
+        }
+
+        public double getMeanScore() {
+            return games == 0 ? 0 : (double) score / games;
+        }
+
+        public double getClearRate() {
+            return games == 0 ? 0 : (double) cleared / games;
+        }
+    }
+
+    private List<LevelConfig> levels;
+    private List<PlayerPolicy> policies;
+    private int gamesPerCell;
+    private long maxTicks;
+    private long baseSeed;
+
+    public BalancingHarness(List<LevelConfig> levels, List<PlayerPolicy> policies, int gamesPerCell, long maxTicks, long baseSeed) {
+        this.levels = levels;
+        this.policies = policies;
+        this.gamesPerCell = gamesPerCell;
+        this.maxTicks = maxTicks;
+        this.baseSeed = baseSeed;
+    }
+
+    /**
+     * Runs every cell on the given number of threads.
+     *
+     * @return one entry per level/policy combination, in level then policy order
+     */
+    public List<Stats> run(int threads) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Stats> report = new ArrayList<Stats>();
+            List<List<Future<Stats>>> pending = new ArrayList<List<Future<Stats>>>();
+            for (int l = 0; l < levels.size(); l++) {
+                for (PlayerPolicy policy : policies) {
+                    final LevelConfig level = levels.get(l);
+                    final LevelConfig[] single = {level};
+                    List<Future<Stats>> tasks = new ArrayList<Future<Stats>>();
+                    for (int first = 0; first < gamesPerCell; first += GAMES_PER_TASK) {
+                        final int from = first;
+                        final int to = Math.min(gamesPerCell, first + GAMES_PER_TASK);
+                        // seeds depend only on the cell and game index, so reports are reproducible
+                        final long cellSeed = cellSeed(l, policy);
+                        tasks.add(pool.submit(() -> {
+                            Stats s = new Stats(level, policy);
+                            for (int g = from; g < to; g++) {
+                                s.add(policy.play(single, cellSeed + g, maxTicks));
+                            }
+                            return s;
+                        }));
+                    }
+                    report.add(new Stats(level, policy));
+                    pending.add(tasks);
+                }
+            }
+            for (int i = 0; i < report.size(); i++) {
+                for (Future<Stats> f : pending.get(i)) {
+                    report.get(i).merge(f.get());
+                }
+            }
+            return report;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Mixes the base seed, policy and level through SplitMix64, so every cell plays
+     * its own independent run of seeds however many games it has.
+     */
+    private long cellSeed(int level, PlayerPolicy policy) {
+        long seed = new GameRandom(baseSeed).nextLong();
+        seed = new GameRandom(seed ^ policy.ordinal()).nextLong();
+        return new GameRandom(seed ^ level).nextLong();
+    }
+
+    public static void main(String[] args) throws Exception {
+        double[] speeds = {0.5, 1, 1.5, 2, 2.5};
+        int[] rows = {3, 5};
+        int[] cols = {10, 16};
+        List<PlayerPolicy> policies = new ArrayList<PlayerPolicy>();
+        int games = 200;
+        long maxTicks = 30000;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            String[] values = kv[1].split(",");
+            switch (kv[0]) {
+                case "speeds":
+                    speeds = new double[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        speeds[i] = Double.parseDouble(values[i]);
+                    }
+                    break;
+                case "rows":
+                    rows = parseInts(values);
+                    break;
+                case "cols":
+                    cols = parseInts(values);
+                    break;
+                case "policies":
+                    for (String v : values) {
+                        policies.add(PlayerPolicy.valueOf(v.toUpperCase()));
+                    }
+                    break;
+                case "games":
+                    games = Integer.parseInt(kv[1]);
+                    break;
+                case "maxTicks":
+                    maxTicks = Long.parseLong(kv[1]);
+                    break;
+                case "seed":
+                    seed = Long.parseLong(kv[1]);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(kv[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + kv[0]);
+            }
+        }
+        if (policies.isEmpty()) {
+            for (PlayerPolicy p : PlayerPolicy.values()) {
+                policies.add(p);
+            }
+        }
+        List<LevelConfig> levels = new ArrayList<LevelConfig>();
+        for (double s : speeds) {
+            for (int r : rows) {
+                for (int c : cols) {
+                    levels.add(new LevelConfig(s, r, c));
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Stats> report = new BalancingHarness(levels, policies, games, maxTicks, seed).run(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-22s %-7s %7s %12s %11s %8s%n", "level", "policy", "games", "mean ticks", "mean score", "cleared");
+        int totalGames = 0;
+        for (Stats s : report) {
+            System.out.printf("%-22s %-7s %7d %12.1f %11.1f %7.1f%%%n", s.level, s.policy, s.games,
+                    s.getMeanTicks(), s.getMeanScore(), 100 * s.getClearRate());
+            totalGames += s.games;
+        }
+        System.out.printf("%d games on %d threads in %.1fs%n", totalGames, threads, seconds);
+    }
+
+    private static int[] parseInts(String[] values) {
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.parseInt(values[i]);
+        }
+        return result;
+    }
+}
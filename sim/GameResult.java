@@ -0,0 +1,39 @@
+package si.sim;
+
+/**
+ * Outcome of one simulated game.
+ */
+public class GameResult {
+    private final long ticks;
+    private final int score;
+    private final int levelsCleared;
+    private final int livesLeft;
+
+    public GameResult(long ticks, int score, int levelsCleared, int livesLeft) {
+        this.ticks = ticks;
+        this.score = score;
+        this.levelsCleared = levelsCleared;
+        this.livesLeft = livesLeft;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevelsCleared() {
+        return levelsCleared;
+    }
+
+    public int getLivesLeft() {
+        return livesLeft;
+    }
+
+    @Override
+    public String toString() {
+        return "ticks=" + ticks + " score=" + score + " levelsCleared=" + levelsCleared + " lives=" + livesLeft;
+    }
+}
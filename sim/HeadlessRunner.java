@@ -0,0 +1,111 @@
+package si.sim;
+
+import si.model.SpaceInvadersGame;
+
+/**
+ * Steps a game one tick at a time as fast as the CPU allows, with no JavaFX toolkit
+ * and no real-time clock. Between ticks it handles pausing, deaths and level changes
+ * the way the engine's GameManager does for the windowed game.
+ */
+public class HeadlessRunner {
+    private SpaceInvadersGame game;
+    private ScriptedInput input;
+    private boolean autoResume;
+    private long ticks;
+    private int levelsCleared;
+
+    public HeadlessRunner(SpaceInvadersGame game, ScriptedInput input) {
+        this(game, input, true);
+    }
+
+    /**
+     * @param autoResume whether to unpause the game automatically; when false, pause is
+     *                   only toggled by presses made on the input
+     */
+    public HeadlessRunner(SpaceInvadersGame game, ScriptedInput input, boolean autoResume) {
+        this.game = game;
+        this.input = input;
+        this.autoResume = autoResume;
+    }
+
+    /**
+     * Runs one tick with whatever keys are currently set on the input.
+     *
+     * @return false once the game is over or every level has been cleared
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        // resume straight away after the pauses that follow a death or a new level
+        if (autoResume && game.isPaused()) {
+            input.pressPause();
+        }
+        game.checkForPause();
+        game.tick();
+        ticks++;
+        if (!game.isPlayerAlive() && !game.isGameOver()) {
+            game.resetDestroyedPlayer();
+        }
+        if (!game.isGameOver() && game.isLevelFinished()) {
+            if (game.getShipsRemaining() == 0) {
+                levelsCleared++;
+            }
+            game.moveToNextLevel();
+        }
+        return !isFinished();
+    }
+
+    public boolean isFinished() {
+        return game.isGameOver() || game.getCurrentLevel() >= game.getLevelCount();
+    }
+
+    /**
+     * Steps until the game finishes or maxTicks ticks have run, leaving the input as it is.
+     */
+    public GameResult run(long maxTicks) {
+        while (ticks < maxTicks && step()) {
+        }
+        return getResult();
+    }
+
+    public GameResult getResult() {
+        return new GameResult(ticks, game.getPlayerScore(), levelsCleared, game.getLives());
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public SpaceInvadersGame getGame() {
+        return game;
+    }
+
+    public ScriptedInput getInput() {
+        return input;
+    }
+
+    /**
+     * Plays games back to back with a simple sweep-and-fire input and reports throughput.
+     * Usage: HeadlessRunner [games] [maxTicksPerGame]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long maxTicks = args.length > 1 ? Long.parseLong(args[1]) : 100000;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            ScriptedInput input = new ScriptedInput();
+            HeadlessRunner runner = new HeadlessRunner(new SpaceInvadersGame(input), input);
+            while (runner.getTicks() < maxTicks && !runner.isFinished()) {
+                boolean goLeft = (runner.getTicks() / 60) % 2 == 0;
+                input.set(goLeft, !goLeft, true);
+                runner.step();
+            }
+            totalTicks += runner.getTicks();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d ticks in %.2fs (%.0f games/s, %.0f ticks/s)%n",
+                games, totalTicks, seconds, games / seconds, totalTicks / seconds);
+    }
+}
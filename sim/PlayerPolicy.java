@@ -0,0 +1,75 @@
+package si.sim;
+
+import si.model.EnemyShip;
+import si.model.LevelConfig;
+import si.model.Player;
+import si.model.SpaceInvadersGame;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scripted stand-ins for a human player, used to play simulated games.
+ */
+public enum PlayerPolicy {
+    /** Stays where it spawns and fires whenever it can. */
+    CAMP {
+        void decide(SpaceInvadersGame game, ScriptedInput input, Random rand, long tick) {
+            input.set(false, false, true);
+        }
+    },
+    /** Sweeps across the screen and back while firing. */
+    SWEEP {
+        void decide(SpaceInvadersGame game, ScriptedInput input, Random rand, long tick) {
+            boolean left = (tick / 60) % 2 == 0;
+            input.set(left, !left, true);
+        }
+    },
+    /** Mashes random keys, holding each choice for a short while. */
+    RANDOM {
+        void decide(SpaceInvadersGame game, ScriptedInput input, Random rand, long tick) {
+            if (tick % 10 == 0) {
+                int move = rand.nextInt(3);
+                input.set(move == 1, move == 2, rand.nextBoolean());
+            }
+        }
+    },
+    /** Moves under the nearest alien and fires at it. */
+    TRACK {
+        void decide(SpaceInvadersGame game, ScriptedInput input, Random rand, long tick) {
+            Player p = game.getShip();
+            int centre = p.getX() + 4 * Player.SHIP_SCALE;
+            List<EnemyShip> ships = game.getEnemyShips();
+            int target = centre;
+            int best = Integer.MAX_VALUE;
+            for (EnemyShip s : ships) {
+                int x = s.getX() + s.getType().getWidth() * EnemyShip.SHIP_SCALE / 2;
+                if (Math.abs(x - centre) < best) {
+                    best = Math.abs(x - centre);
+                    target = x;
+                }
+            }
+            input.set(target < centre - 3, target > centre + 3, true);
+        }
+    };
+
+    /**
+     * Sets the input for the next tick.
+     */
+    abstract void decide(SpaceInvadersGame game, ScriptedInput input, Random rand, long tick);
+
+    /**
+     * Plays one game to the end or until maxTicks ticks have run.
+     */
+    public GameResult play(LevelConfig[] levels, long seed, long maxTicks) {
+        ScriptedInput input = new ScriptedInput();
+        SpaceInvadersGame game = new SpaceInvadersGame(input, levels, seed);
+        HeadlessRunner runner = new HeadlessRunner(game, input);
+        Random rand = new Random(seed);
+        while (runner.getTicks() < maxTicks && !runner.isFinished()) {
+            decide(game, input, rand, runner.getTicks());
+            runner.step();
+        }
+        return runner.getResult();
+    }
+}
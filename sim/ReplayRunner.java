@@ -0,0 +1,79 @@
+package si.sim;
+
+import si.model.InputRecording;
+import si.model.SpaceInvadersGame;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Re-simulates a recorded game headlessly, as fast as the CPU allows. Because the game
+ * is deterministic for a given seed and per-tick input, the replay reproduces the
+ * original session exactly.
+ */
+public class ReplayRunner {
+    private InputRecording recording;
+    private HeadlessRunner runner;
+    private int next;
+
+    public ReplayRunner(InputRecording recording) {
+        this.recording = recording;
+        ScriptedInput input = new ScriptedInput();
+        SpaceInvadersGame game = new SpaceInvadersGame(input, recording.getLevels(), recording.getSeed());
+        runner = new HeadlessRunner(game, input, false);
+    }
+
+    /**
+     * Replays the next recorded tick.
+     *
+     * @return false once the recording or the game has ended
+     */
+    public boolean step() {
+        if (next >= recording.size() || runner.isFinished()) {
+            return false;
+        }
+        int bits = recording.get(next++);
+        ScriptedInput input = runner.getInput();
+        input.set((bits & InputRecording.LEFT) != 0, (bits & InputRecording.RIGHT) != 0,
+                (bits & InputRecording.FIRE) != 0);
+        if ((bits & InputRecording.PAUSE) != 0) {
+            input.pressPause();
+        }
+        runner.step();
+        return true;
+    }
+
+    /**
+     * Replays up to the given tick, or to the end when tick is past it.
+     */
+    public GameResult runTo(long tick) {
+        while (next < tick && step()) {
+        }
+        return runner.getResult();
+    }
+
+    public SpaceInvadersGame getGame() {
+        return runner.getGame();
+    }
+
+    /**
+     * Usage: ReplayRunner recording-file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ReplayRunner recording-file");
+            System.exit(1);
+        }
+        InputRecording recording;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(args[0]))) {
+            recording = InputRecording.read(in);
+        }
+        long start = System.nanoTime();
+        GameResult result = new ReplayRunner(recording).runTo(Long.MAX_VALUE);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("seed %d, %d recorded ticks replayed in %.3fs: %s%n",
+                recording.getSeed(), recording.size(), seconds, result);
+    }
+}
@@ -0,0 +1,50 @@
+package si.sim;
+
+import si.model.InputSource;
+
+/**
+ * Input whose keys are set directly by code rather than by a keyboard.
+ */
+public class ScriptedInput implements InputSource {
+    private boolean left;
+    private boolean right;
+    private boolean fire;
+    private boolean pause;
+
+    public void set(boolean left, boolean right, boolean fire) {
+        this.left = left;
+        this.right = right;
+        this.fire = fire;
+    }
+
+    public void pressPause() {
+        pause = true;
+    }
+
+    public void beginTick(long until) {
+    }
+
+    public long getInputTime() {
+        return 0;
+    }
+
+    public boolean isPressingLeft() {
+        return left;
+    }
+
+    public boolean isPressingRight() {
+        return right;
+    }
+
+    public boolean isPressingFire() {
+        return fire;
+    }
+
+    public boolean hasPressedPause() {
+        return pause;
+    }
+
+    public void resetPause() {
+        pause = false;
+    }
+}
@@ -0,0 +1,71 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulletPoolTest {
+
+    @Test
+    void restoreReturnsTheSavedBullets() {
+        BulletPool pool = new BulletPool(4);
+        pool.acquire(10, 20, -5);
+        pool.acquire(30, 40, 5);
+        ByteBuffer saved = save(pool);
+        pool.release(0);
+        pool.acquire(70, 80, -5);
+        pool.acquire(90, 100, -5);
+
+        pool.restore(saved);
+        assertEquals(2, pool.size());
+        assertEquals(10, pool.get(0).getX());
+        assertEquals(40, pool.get(1).getY());
+    }
+
+    @Test
+    void restoreRejectsMoreBulletsThanThePoolHolds() {
+        BulletPool big = new BulletPool(4);
+        big.acquire(10, 20, -5);
+        big.acquire(30, 40, -5);
+        big.acquire(50, 60, -5);
+        BulletPool small = new BulletPool(2);
+        small.acquire(1, 2, 5);
+        ByteBuffer saved = save(big);
+        assertThrows(IllegalArgumentException.class, () -> small.restore(saved));
+        assertUnchanged(small);
+    }
+
+    @Test
+    void restoreRejectsACorruptBuffer() {
+        BulletPool pool = new BulletPool(2);
+        pool.acquire(1, 2, 5);
+        ByteBuffer negative = ByteBuffer.allocate(2).putShort((short) -1);
+        negative.flip();
+        assertThrows(IllegalArgumentException.class, () -> pool.restore(negative));
+        assertUnchanged(pool);
+
+        BulletPool other = new BulletPool(2);
+        other.acquire(10, 20, -5);
+        other.acquire(30, 40, -5);
+        ByteBuffer full = save(other);
+        ByteBuffer truncated = ByteBuffer.wrap(full.array(), 0, full.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> pool.restore(truncated));
+        assertUnchanged(pool);
+    }
+
+    private static void assertUnchanged(BulletPool pool) {
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.get(0).getX());
+        assertEquals(2, pool.get(0).getY());
+    }
+
+    private static ByteBuffer save(BulletPool pool) {
+        ByteBuffer out = ByteBuffer.allocate(pool.snapshotSize());
+        pool.save(out);
+        out.flip();
+        return out;
+    }
+}
@@ -0,0 +1,95 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BunkerTest {
+
+    @Test
+    void radiusZeroRemovesOnlyTheCellHit() {
+        Bunker bunker = new Bunker(100, 300);
+        int live = bunker.getLiveCells();
+        // column 4 is open under the arch, so the bullet first reaches row 2
+        bunker.isHit(fire(120, 350, -100));
+        assertEquals(~(1L << 4) & 0x3FF, bunker.getRowBits(2));
+        assertEquals(live - 1, bunker.getLiveCells());
+    }
+
+    @Test
+    void hitClearsADiamondAroundTheImpact() {
+        Bunker bunker = new Bunker(100, 300);
+        bunker.setDamageRadius(1);
+        long[] before = rows(bunker);
+        int live = bunker.getLiveCells();
+        bunker.isHit(fire(120, 350, -100));
+        // row 3 has no cell in column 4 to clear
+        assertEquals(before[1] & ~(1L << 4), bunker.getRowBits(1));
+        assertEquals(before[2] & ~(7L << 3), bunker.getRowBits(2));
+        assertEquals(before[3], bunker.getRowBits(3));
+        for (int r : new int[]{0, 4, 5, 6}) {
+            assertEquals(before[r], bunker.getRowBits(r), "row " + r);
+        }
+        assertEquals(live - 4, bunker.getLiveCells());
+    }
+
+    @Test
+    void diamondIsClippedAtTheBunkerEdges() {
+        Bunker bunker = new Bunker(100, 300);
+        bunker.setDamageRadius(2);
+        int live = bunker.getLiveCells();
+        // column 0 is solid from row 2 down, and the bottom row is the first one reached
+        bunker.isHit(fire(100, 350, -100));
+        // rows 4 to 6, columns 0 to 2 within distance 2 of (6, 0)
+        assertEquals(0, bunker.getRowBits(6) & 0b1111);
+        assertEquals(0b0100, bunker.getRowBits(5) & 0b0111);
+        assertEquals(0b0110, bunker.getRowBits(4) & 0b0111);
+        int cleared = 0;
+        for (int r = 0; r < bunker.getRows(); r++) {
+            cleared += Long.bitCount(rows(new Bunker(100, 300))[r] & ~bunker.getRowBits(r));
+        }
+        assertEquals(6, cleared);
+        assertEquals(live - cleared, bunker.getLiveCells());
+    }
+
+    @Test
+    void rejectsDamageRadiusOutOfRange() {
+        Bunker bunker = new Bunker(100, 300);
+        assertThrows(IllegalArgumentException.class, () -> bunker.setDamageRadius(-1));
+        assertThrows(IllegalArgumentException.class, () -> bunker.setDamageRadius(Bunker.MAX_DAMAGE_RADIUS + 1));
+        bunker.setDamageRadius(Bunker.MAX_DAMAGE_RADIUS);
+        bunker.isHit(fire(120, 350, -100));
+        assertEquals(0, bunker.getLiveCells());
+    }
+
+    @Test
+    void rejectsCellSizesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new Bunker(100, 300, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Bunker(100, 300, 36));
+    }
+
+    @Test
+    void levelsBuildBunkersFromTheirConfig() {
+        LevelConfig[] levels = {new LevelConfig(1, 1, 2, 1, 3)};
+        SpaceInvadersGame game = new SpaceInvadersGame(levels, 1, 1);
+        for (Bunker b : game.getLevel().getBunkers()) {
+            assertEquals(1, b.getCellSize());
+            assertEquals(3, b.getDamageRadius());
+        }
+    }
+
+    private static long[] rows(Bunker bunker) {
+        long[] rows = new long[bunker.getRows()];
+        for (int r = 0; r < rows.length; r++) {
+            rows[r] = bunker.getRowBits(r);
+        }
+        return rows;
+    }
+
+    private static Bullet fire(int x, int y, int speed) {
+        Bullet b = new BulletPool(1).acquire(x, y, speed);
+        b.move();
+        return b;
+    }
+}
@@ -0,0 +1,83 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollisionTest {
+
+    @Test
+    void sweepFindsTheEntryPointOfAThinTarget() {
+        // a 4x8 box moving 200 pixels up through a target only 2 pixels tall
+        double t = Collision.sweep(0, 100, 0, -100, 4, 8, 0, 0, 4, 2);
+        assertEquals((2 - 100) / -200.0, t, 1e-9);
+    }
+
+    @Test
+    void sweepMissesATargetBesideThePath() {
+        assertEquals(Collision.MISS, Collision.sweep(0, 100, 0, -100, 4, 8, 4, 0, 8, 2));
+    }
+
+    @Test
+    void sweepIgnoresBoxesThatOnlyTouch() {
+        assertEquals(Collision.MISS, Collision.sweep(0, 20, 0, 10, 4, 8, 0, 0, 4, 2));
+    }
+
+    @Test
+    void sweepReportsOverlapAtTheStartAsTimeZero() {
+        assertEquals(0, Collision.sweep(0, 0, 0, -10, 4, 8, 0, 0, 4, 2));
+    }
+
+    @Test
+    void fastBulletCannotTunnelThroughABunker() {
+        Bunker bunker = new Bunker(100, 300);
+        // column 2 is solid from the top row to the bottom one
+        Bullet b = fire(110, 350, -100);
+        assertFalse(bunker.overlaps(b), "the bullet ends its move beyond the bunker");
+        assertTrue(bunker.isHit(b));
+        int bottom = bunker.getRows() - 1;
+        assertEquals(0, bunker.getRowBits(bottom) & (1L << 2), "the first cell on the path is the bottom one");
+        for (int r = 0; r < bottom; r++) {
+            assertTrue((bunker.getRowBits(r) & (1L << 2)) != 0, "row " + r + " must be untouched");
+        }
+    }
+
+    @Test
+    void fastBulletErodesTheFirstCellAcrossTheArch() {
+        Bunker bunker = new Bunker(100, 300);
+        // column 4 is open under the arch and solid in rows 0 to 2
+        Bullet b = fire(120, 350, -100);
+        assertTrue(bunker.isHit(b));
+        assertEquals(0, bunker.getRowBits(2) & (1L << 4));
+        assertTrue((bunker.getRowBits(1) & (1L << 4)) != 0);
+    }
+
+    @Test
+    void fastBulletHitsTheNearestShipOfTheSwarm() {
+        // two ships in one column; the game is only needed for moving the swarm
+        Swarm swarm = new Swarm(2, 1, 1, 1, null);
+        Bullet b = fire(55, 200, -200);
+        assertTrue(swarm.isHit(b));
+        List<EnemyShip> left = swarm.getEnemyShips();
+        assertEquals(1, left.size());
+        assertEquals(0, left.get(0).getRow(), "the lower ship is reached first and the upper one survives");
+    }
+
+    @Test
+    void fastBulletMissesAShipItPassesBeside() {
+        Swarm swarm = new Swarm(1, 1, 1, 1, null);
+        Bullet b = fire(50 + EnemyShip.SHIP_SCALE * AlienType.A.getWidth(), 200, -200);
+        assertFalse(swarm.isHit(b));
+        assertEquals(1, swarm.getShipsRemaining());
+    }
+
+    private static Bullet fire(int x, int y, int speed) {
+        Bullet b = new BulletPool(1).acquire(x, y, speed);
+        b.move();
+        return b;
+    }
+}
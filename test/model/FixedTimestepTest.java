@@ -0,0 +1,38 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedTimestepTest {
+    private static final long STEP = 1000000000L / 50;
+
+    @Test
+    void runsOneTickPerStepOfElapsedTime() {
+        FixedTimestep timestep = new FixedTimestep(50, 5);
+        assertEquals(0, timestep.advance(0));
+        assertEquals(2, timestep.advance(2 * STEP + STEP / 4));
+        assertEquals(0.25, timestep.getAlpha(), 1e-9);
+        assertEquals(1, timestep.advance(3 * STEP));
+    }
+
+    @Test
+    void dropsTheBacklogBeyondTheCatchUpLimit() {
+        FixedTimestep timestep = new FixedTimestep(50, 5);
+        timestep.advance(0);
+        assertEquals(5, timestep.advance(100 * STEP + STEP / 2));
+        assertEquals(0.5, timestep.getAlpha(), 1e-9);
+        // the 95 dropped ticks are not owed on the next call
+        assertEquals(0, timestep.advance(100 * STEP + STEP / 2 + 1));
+    }
+
+    @Test
+    void splitsTheElapsedTimeBetweenTheTicksRun() {
+        FixedTimestep timestep = new FixedTimestep(50, 5);
+        timestep.advance(0);
+        long now = 3 * STEP + 7;
+        assertEquals(3, timestep.advance(now));
+        assertEquals(now - 7 - 2 * STEP, timestep.getTickEnd(0, 3));
+        assertEquals(now - 7, timestep.getTickEnd(2, 3));
+    }
+}
@@ -0,0 +1,119 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSnapshotTest {
+    // fast, shallow swarms that reach the bunkers within a few hundred ticks
+    private static final LevelConfig[] SHORT_LEVELS = {
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2)
+    };
+    private static final long SEED = 7;
+
+    @Test
+    void restoreReturnsToTheSavedState() {
+        SpaceInvadersGame game = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2);
+        run(game, 300);
+        GameSnapshot saved = snapshot(game);
+        run(game, 200);
+        assertNotEquals(saved.checksum(), snapshot(game).checksum());
+        game.restore(saved);
+        assertEquals(saved.checksum(), snapshot(game).checksum());
+        assertEquals(saved.getTick(), game.getTickCount());
+    }
+
+    @Test
+    void restoredGameReplaysIdentically() {
+        SpaceInvadersGame game = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2);
+        run(game, 300);
+        GameSnapshot saved = snapshot(game);
+        run(game, 500);
+        long straight = snapshot(game).checksum();
+        game.restore(saved);
+        run(game, 500);
+        assertEquals(straight, snapshot(game).checksum());
+    }
+
+    @Test
+    void writtenSnapshotRestoresIntoAnotherGame() throws IOException {
+        SpaceInvadersGame game = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2);
+        run(game, 400);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot(game).write(bytes);
+        run(game, 300);
+
+        SpaceInvadersGame copy = new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2);
+        GameSnapshot loaded = new GameSnapshot(copy.getSnapshotCapacity());
+        loaded.read(new ByteArrayInputStream(bytes.toByteArray()));
+        copy.restore(loaded);
+        assertEquals(400, copy.getTickCount());
+        run(copy, 300);
+        assertEquals(snapshot(game).checksum(), snapshot(copy).checksum());
+    }
+
+    @Test
+    void restoreAcrossALevelChangeReplaysIdentically() {
+        SpaceInvadersGame game = new SpaceInvadersGame(SHORT_LEVELS, SEED, 2);
+        // find the tick on which the first level ends
+        int boundary = 0;
+        while (game.getCurrentLevel() == 0) {
+            run(game, 1);
+            boundary++;
+        }
+        int end = boundary + 400;
+
+        SpaceInvadersGame straight = new SpaceInvadersGame(SHORT_LEVELS, SEED, 2);
+        run(straight, end);
+        assertTrue(straight.getCurrentLevel() >= 1, "the run must end past the first level");
+
+        SpaceInvadersGame rewound = new SpaceInvadersGame(SHORT_LEVELS, SEED, 2);
+        run(rewound, boundary - 3);
+        GameSnapshot saved = snapshot(rewound);
+        run(rewound, end - (boundary - 3));
+        rewound.restore(saved);
+        assertEquals(0, rewound.getCurrentLevel());
+        run(rewound, end - (boundary - 3));
+
+        assertEquals(straight.getCurrentLevel(), rewound.getCurrentLevel());
+        assertEquals(snapshot(straight).checksum(), snapshot(rewound).checksum());
+    }
+
+    private static GameSnapshot snapshot(SpaceInvadersGame game) {
+        GameSnapshot s = new GameSnapshot(game.getSnapshotCapacity());
+        game.save(s);
+        return s;
+    }
+
+    /**
+     * Runs ticks with input that depends only on the tick number, resuming after every
+     * pause and handling deaths and level changes as the engine does.
+     */
+    private static void run(SpaceInvadersGame game, int ticks) {
+        for (int i = 0; i < ticks && !game.isGameOver(); i++) {
+            long t = game.getTickCount();
+            int held = InputRecording.LEFT | InputRecording.RIGHT | InputRecording.FIRE;
+            int input1 = new GameRandom(2 * t).nextInt(8) & held;
+            int input2 = new GameRandom(2 * t + 1).nextInt(8) & held;
+            if (game.isPaused()) {
+                input1 |= InputRecording.PAUSE;
+            }
+            game.tick(input1, input2);
+            if (!game.isPlayerAlive() && !game.isGameOver()) {
+                game.resetDestroyedPlayer();
+            }
+            if (!game.isGameOver() && game.isLevelFinished()) {
+                game.moveToNextLevel();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyEventQueueTest {
+    private static final int LEFT = InputRecording.LEFT;
+    private static final int RIGHT = InputRecording.RIGHT;
+    private static final int FIRE = InputRecording.FIRE;
+
+    @Test
+    void tapWithinOneTickCountsForThatTick() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        queue.press(FIRE, 10);
+        queue.release(FIRE, 20);
+        assertEquals(FIRE, queue.drain(100));
+        assertEquals(FIRE, queue.getTickKeys());
+        assertEquals(0, queue.drain(200));
+    }
+
+    @Test
+    void keyReleasedMidTickCountsForThatTick() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        queue.press(LEFT, 10);
+        assertEquals(LEFT, queue.drain(100));
+        queue.release(LEFT, 150);
+        assertEquals(LEFT, queue.drain(200), "the key was down when the tick began");
+        assertEquals(0, queue.drain(300));
+    }
+
+    @Test
+    void eventsAfterTheTickWaitForTheNextOne() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        queue.press(LEFT, 150);
+        assertEquals(0, queue.drain(100));
+        assertEquals(LEFT, queue.drain(200));
+        queue.release(LEFT, 250);
+        queue.press(RIGHT, 350);
+        assertEquals(LEFT, queue.drain(300));
+        assertEquals(RIGHT, queue.drain(Long.MAX_VALUE));
+    }
+
+    @Test
+    void eventsApplyInTheOrderTheyHappened() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        // released then pressed again: still held after the tick
+        queue.press(LEFT, 10);
+        queue.release(LEFT, 20);
+        queue.press(LEFT, 30);
+        // pressed then released: only counts for this tick
+        queue.press(RIGHT, 40);
+        queue.release(RIGHT, 50);
+        assertEquals(LEFT | RIGHT, queue.drain(100));
+        assertEquals(LEFT, queue.drain(200));
+    }
+
+    @Test
+    void autoRepeatIsIgnored() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        queue.press(FIRE, 10);
+        queue.press(FIRE, 20);
+        queue.press(FIRE, 30);
+        assertEquals(FIRE, queue.drain(100));
+        assertEquals(10, queue.getFirstPressTime());
+        queue.press(FIRE, 110);
+        assertEquals(FIRE, queue.drain(200));
+        assertEquals(0, queue.getFirstPressTime(), "a repeat is not a new press");
+        queue.release(FIRE, 210);
+        assertEquals(FIRE, queue.drain(300));
+        assertEquals(0, queue.drain(400), "one release ends the repeated presses");
+    }
+
+    @Test
+    void firstPressTimeIsTheEarliestPressDrained() {
+        KeyEventQueue queue = new KeyEventQueue(16);
+        queue.press(LEFT, 50);
+        queue.press(FIRE, 70);
+        queue.press(RIGHT, 150);
+        queue.drain(100);
+        assertEquals(50, queue.getFirstPressTime());
+        queue.drain(200);
+        assertEquals(150, queue.getFirstPressTime());
+        queue.drain(300);
+        assertEquals(0, queue.getFirstPressTime());
+    }
+
+    @Test
+    void overflowFallsBackToTheKeysDown() {
+        KeyEventQueue queue = new KeyEventQueue(4);
+        queue.press(LEFT, 1);
+        queue.release(LEFT, 2);
+        queue.press(LEFT, 3);
+        queue.release(LEFT, 4);
+        // the ring is full, so these are lost
+        queue.press(RIGHT, 5);
+        queue.press(FIRE, 6);
+        queue.release(FIRE, 7);
+        assertEquals(LEFT | RIGHT, queue.drain(Long.MAX_VALUE));
+        assertEquals(RIGHT, queue.drain(Long.MAX_VALUE));
+        // events are queued again once there is room
+        queue.release(RIGHT, 8);
+        assertEquals(RIGHT, queue.drain(Long.MAX_VALUE));
+        assertEquals(0, queue.drain(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,121 @@
+package si.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpatialGridTest {
+    private final SpatialGrid grid = new SpatialGrid(800, 600);
+    private final List<Hittable> found = new ArrayList<Hittable>();
+
+    @Test
+    void entitySpanningSeveralCellsIsReturnedOnce() {
+        Box wide = new Box(10, 10, 150, 120); // five columns by four rows of cells
+        Box small = new Box(40, 40, 4, 4);
+        grid.insert(wide);
+        grid.insert(small);
+        query(0, 0, 800, 600);
+        assertEquals(2, found.size());
+        assertTrue(found.contains(wide) && found.contains(small));
+        // a later query returns them again
+        query(0, 0, 800, 600);
+        assertEquals(2, found.size());
+    }
+
+    @Test
+    void queryReturnsOnlyEntitiesInTheCellsOverlapped() {
+        Box left = new Box(10, 10, 8, 8);
+        Box right = new Box(700, 500, 8, 8);
+        grid.insert(left);
+        grid.insert(right);
+        query(0, 0, 20, 20);
+        assertEquals(List.of(left), found);
+    }
+
+    @Test
+    void removedEntityIsNoLongerReturned() {
+        Box a = new Box(100, 100, 70, 70);
+        Box b = new Box(120, 120, 8, 8);
+        grid.insert(a);
+        grid.insert(b);
+        grid.remove(a);
+        grid.remove(a);
+        query(0, 0, 800, 600);
+        assertEquals(List.of(b), found);
+    }
+
+    @Test
+    void updateMovesAnEntityToItsNewCells() {
+        Box box = new Box(10, 10, 40, 40);
+        grid.insert(box);
+        box.moveTo(500, 400);
+        grid.update(box);
+        query(0, 0, 100, 100);
+        assertTrue(found.isEmpty());
+        query(490, 390, 560, 460);
+        assertEquals(List.of(box), found);
+        // inserting again is an update, not a second registration
+        box.moveTo(200, 200);
+        grid.insert(box);
+        query(0, 0, 800, 600);
+        assertEquals(List.of(box), found);
+    }
+
+    private void query(double minX, double minY, double maxX, double maxY) {
+        found.clear();
+        grid.query(minX, minY, maxX, maxY, found);
+    }
+
+    private static final class Box implements Hittable {
+        private double x, y;
+        private final double width, height;
+
+        Box(double x, double y, double width, double height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        void moveTo(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public boolean isAlive() {
+            return true;
+        }
+
+        public int getPoints() {
+            return 0;
+        }
+
+        public boolean isPlayer() {
+            return false;
+        }
+
+        public boolean isHit(Bullet b) {
+            return false;
+        }
+
+        public double getMinX() {
+            return x;
+        }
+
+        public double getMinY() {
+            return y;
+        }
+
+        public double getMaxX() {
+            return x + width;
+        }
+
+        public double getMaxY() {
+            return y + height;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package si.model;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickEventTest {
+
+    @Test
+    void ticksAfterTheLastLevelAreRecorded(@TempDir Path dir) throws IOException {
+        SpaceInvadersGame game = new SpaceInvadersGame(new LevelConfig[]{new LevelConfig(8, 1, 2)}, 1, 2);
+        Path file = dir.resolve("ticks.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("si.Tick");
+            recording.start();
+            while (game.getCurrentLevel() < game.getLevelCount()) {
+                game.tick(game.isPaused() ? InputRecording.PAUSE : 0, 0);
+                if (!game.isPlayerAlive()) {
+                    game.resetDestroyedPlayer();
+                }
+                if (game.isLevelFinished()) {
+                    game.moveToNextLevel();
+                }
+            }
+            // ticking on once every level is over, paused and then resumed
+            game.tick(0, 0);
+            game.tick(InputRecording.PAUSE, 0);
+            game.tick(0, 0);
+            recording.stop();
+            recording.dump(file);
+        }
+        int afterLastLevel = 0;
+        boolean resumed = false;
+        for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+            if (e.getEventType().getName().equals("si.Tick") && e.getInt("level") == game.getLevelCount()) {
+                afterLastLevel++;
+                resumed |= !e.getBoolean("paused");
+                assertTrue(e.getInt("entities") >= game.getPlayerCount());
+            }
+        }
+        assertEquals(3, afterLastLevel);
+        assertTrue(resumed);
+    }
+
+    @Test
+    void gameEventsAreRecordedWhenEnabled(@TempDir Path dir) throws IOException {
+        SpaceInvadersGame game = new SpaceInvadersGame(new LevelConfig[]{new LevelConfig(8, 1, 2)}, 1, 2);
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("si.BulletSpawn");
+            recording.enable("si.LevelTransition");
+            recording.start();
+            while (game.getCurrentLevel() < game.getLevelCount()) {
+                game.tick(game.isPaused() ? InputRecording.PAUSE : InputRecording.FIRE, 0);
+                if (!game.isPlayerAlive()) {
+                    game.resetDestroyedPlayer();
+                }
+                if (game.isLevelFinished()) {
+                    game.moveToNextLevel();
+                }
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        int spawns = 0, transitions = 0;
+        for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+            String name = e.getEventType().getName();
+            if (name.equals("si.BulletSpawn")) {
+                spawns++;
+            } else if (name.equals("si.LevelTransition")) {
+                transitions++;
+            }
+        }
+        assertTrue(spawns > 0);
+        assertEquals(1, transitions);
+    }
+}
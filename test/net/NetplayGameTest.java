@@ -0,0 +1,114 @@
+package si.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import si.model.InputRecording;
+import si.model.InputSource;
+import si.model.SpaceInvadersGame;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NetplayGameTest {
+    private static final long SEED = 5;
+    private PeerLink first;
+    private PeerLink second;
+
+    @AfterEach
+    void closeLinks() throws IOException {
+        if (first != null) {
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Test
+    void tapDuringAStallReachesTheNextFrame() throws Exception {
+        int port1 = freePort();
+        int port2 = freePort();
+        first = new PeerLink(port1, new InetSocketAddress("127.0.0.1", port2));
+        second = new PeerLink(port2, new InetSocketAddress("127.0.0.1", port1));
+        RollbackSession a = new RollbackSession(new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2), 0, first);
+        RollbackSession b = new RollbackSession(new SpaceInvadersGame(SpaceInvadersGame.DEFAULT_LEVELS, SEED, 2), 1, second);
+        ScriptedKeys keys = new ScriptedKeys();
+        NetplayGame netplay = new NetplayGame(a, keys);
+        // the game starts paused
+        keys.pause = true;
+        netplay.checkForPause();
+
+        // run ahead of the silent peer until the prediction limit stops the session
+        while (netplay.runTick(0)) {
+            assertTrue(a.getFrame() <= RollbackSession.MAX_PREDICTION);
+        }
+        int stalledAt = a.getFrame();
+        int x = a.getGame().getShip(0).getX();
+        keys.next = InputRecording.LEFT;
+        assertFalse(netplay.runTick(0), "the tap lands while the session waits");
+        keys.next = 0;
+        assertFalse(netplay.runTick(0));
+        assertEquals(x, a.getGame().getShip(0).getX());
+
+        // the peer catches up and its input arrives
+        for (int i = 0; i < stalledAt; i++) {
+            assertTrue(b.advance(0));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (a.getRemoteConfirmed() < stalledAt - 1 && System.currentTimeMillis() < deadline) {
+            a.poll();
+            Thread.sleep(1);
+        }
+        assertTrue(netplay.runTick(0));
+        assertEquals(stalledAt + 1, a.getFrame());
+        assertTrue(a.getGame().getShip(0).getX() < x, "the tap moved the ship on the first frame after the stall");
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Reports the keys set in {@link #next} for each tick, as if they were tapped in it.
+     */
+    private static final class ScriptedKeys implements InputSource {
+        int next;
+        boolean pause;
+        private int keys;
+
+        public void beginTick(long until) {
+            keys = next;
+        }
+
+        public long getInputTime() {
+            return 0;
+        }
+
+        public boolean isPressingLeft() {
+            return (keys & InputRecording.LEFT) != 0;
+        }
+
+        public boolean isPressingRight() {
+            return (keys & InputRecording.RIGHT) != 0;
+        }
+
+        public boolean isPressingFire() {
+            return (keys & InputRecording.FIRE) != 0;
+        }
+
+        public boolean hasPressedPause() {
+            return pause;
+        }
+
+        public void resetPause() {
+            pause = false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package si.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import si.model.GameSnapshot;
+import si.model.InputRecording;
+import si.model.LevelConfig;
+import si.model.SpaceInvadersGame;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollbackSessionTest {
+    // fast, shallow swarms, so a short session crosses several level changes
+    private static final LevelConfig[] SHORT_LEVELS = {
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2),
+            new LevelConfig(8, 1, 2)
+    };
+    private static final long SEED = 5;
+    private static final int BLOCK = 8; // frames each side runs before the other gets a turn
+    private static final int MAX_FRAMES = 20000;
+    private PeerLink first;
+    private PeerLink second;
+
+    @AfterEach
+    void closeLinks() throws IOException {
+        if (first != null) {
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Test
+    void peersAgreeAfterRollingBackAcrossLevelChanges() throws IOException {
+        int port1 = freePort();
+        int port2 = freePort();
+        first = new PeerLink(port1, new InetSocketAddress("127.0.0.1", port2));
+        second = new PeerLink(port2, new InetSocketAddress("127.0.0.1", port1));
+        RollbackSession a = new RollbackSession(new SpaceInvadersGame(SHORT_LEVELS, SEED, 2), 0, first);
+        RollbackSession b = new RollbackSession(new SpaceInvadersGame(SHORT_LEVELS, SEED, 2), 1, second);
+        int[] inputsA = new int[MAX_FRAMES];
+        int[] inputsB = new int[MAX_FRAMES];
+        // frames the first side simulated on prediction before hearing from the second
+        List<int[]> predicted = new ArrayList<int[]>();
+
+        for (int turn = 0; turn < MAX_FRAMES && !(a.isFinished() && b.isFinished()); turn++) {
+            int start = a.getFrame();
+            for (int i = 0; i < BLOCK; i++) {
+                int f = a.getFrame();
+                int bits = InputRecording.FIRE;
+                // only the first player resumes, as in NetplayRunner
+                if (a.getGame().isPaused()) {
+                    bits |= InputRecording.PAUSE;
+                }
+                if (a.advance(bits)) {
+                    inputsA[f] = bits;
+                }
+            }
+            if (a.getFrame() > start) {
+                predicted.add(new int[]{start, a.getFrame()});
+            }
+            for (int i = 0; i < BLOCK; i++) {
+                int f = b.getFrame();
+                // changes every frame, so every prediction of it is wrong
+                int bits = (f & 1) == 0 ? InputRecording.LEFT : InputRecording.RIGHT;
+                if (b.advance(bits)) {
+                    inputsB[f] = bits;
+                }
+            }
+        }
+        for (int i = 0; i < 100 && !(a.isSettled() && b.isSettled()); i++) {
+            a.poll();
+            a.send();
+            b.poll();
+            b.send();
+        }
+        assertTrue(a.isFinished() && b.isFinished(), "both sides must play the session to the end");
+        assertTrue(a.isSettled() && b.isSettled());
+        assertEquals(a.getFrame(), b.getFrame());
+
+        // the same inputs applied without netplay
+        SpaceInvadersGame reference = new SpaceInvadersGame(SHORT_LEVELS, SEED, 2);
+        List<Integer> levelChanges = new ArrayList<Integer>();
+        for (int f = 0; f < a.getFrame(); f++) {
+            int level = reference.getCurrentLevel();
+            reference.tick(inputsA[f], inputsB[f]);
+            if (!reference.isPlayerAlive() && !reference.isGameOver()) {
+                reference.resetDestroyedPlayer();
+            }
+            if (!reference.isGameOver() && reference.isLevelFinished()) {
+                reference.moveToNextLevel();
+            }
+            if (reference.getCurrentLevel() != level) {
+                levelChanges.add(f);
+            }
+        }
+        assertTrue(levelChanges.size() >= 2, "the session must cross level changes, crossed " + levelChanges);
+        assertTrue(rolledBackOver(predicted, levelChanges), "a rollback must re-simulate a level change");
+        assertTrue(a.getRollbacks() > 0);
+
+        long expected = checksum(reference);
+        assertEquals(expected, checksum(a.getGame()));
+        assertEquals(expected, checksum(b.getGame()));
+    }
+
+    @Test
+    void packetsFromAnotherSessionAreIgnored() throws Exception {
+        int port1 = freePort();
+        int port2 = freePort();
+        first = new PeerLink(port1, new InetSocketAddress("127.0.0.1", port2));
+        second = new PeerLink(port2, new InetSocketAddress("127.0.0.1", port1));
+        RollbackSession a = new RollbackSession(new SpaceInvadersGame(SHORT_LEVELS, SEED, 2), 0, first);
+        byte[] stale = {InputRecording.LEFT, InputRecording.LEFT, InputRecording.LEFT};
+        second.send(SEED + 1, 3, 0, -1, 0, stale, stale.length);
+        byte[] current = {InputRecording.RIGHT};
+        second.send(SEED, 1, 0, -1, 0, current, current.length);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (a.getRemoteConfirmed() < 0 && System.currentTimeMillis() < deadline) {
+            a.poll();
+            Thread.sleep(1);
+        }
+        assertEquals(0, a.getRemoteConfirmed(), "only the input sent with the agreed seed is applied");
+    }
+
+    /**
+     * Each predicted run was rolled back from its first frame, so a level change inside
+     * one was simulated once with the wrong input and again after the rollback.
+     */
+    private static boolean rolledBackOver(List<int[]> predicted, List<Integer> levelChanges) {
+        for (int[] run : predicted) {
+            for (int f : levelChanges) {
+                if (f >= run[0] && f < run[1]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long checksum(SpaceInvadersGame game) {
+        GameSnapshot s = new GameSnapshot(game.getSnapshotCapacity());
+        game.save(s);
+        return s.checksum();
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package si.sim;
+
+import org.junit.jupiter.api.Test;
+import si.model.GameRandom;
+import si.model.GameSnapshot;
+import si.model.InputRecording;
+import si.model.SpaceInvadersGame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplayRunnerTest {
+
+    @Test
+    void replayReproducesTheRecordedGame() throws IOException {
+        ScriptedInput input = new ScriptedInput();
+        SpaceInvadersGame game = new SpaceInvadersGame(input, SpaceInvadersGame.DEFAULT_LEVELS, 11);
+        InputRecording recording = game.startRecording();
+        HeadlessRunner runner = new HeadlessRunner(game, input);
+        GameRandom keys = new GameRandom(3);
+        for (int i = 0; i < 5000 && !runner.isFinished(); i++) {
+            if (i % 20 == 0) {
+                int bits = keys.nextInt(8);
+                input.set((bits & 1) != 0, (bits & 2) != 0, (bits & 4) != 0);
+            }
+            runner.step();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recording.write(bytes);
+
+        ReplayRunner replay = new ReplayRunner(InputRecording.read(new ByteArrayInputStream(bytes.toByteArray())));
+        GameResult replayed = replay.runTo(Long.MAX_VALUE);
+        SpaceInvadersGame copy = replay.getGame();
+
+        assertEquals(recording.size(), copy.getTickCount());
+        assertEquals(runner.getResult().getScore(), replayed.getScore());
+        assertEquals(game.getLives(), copy.getLives());
+        assertEquals(game.getCurrentLevel(), copy.getCurrentLevel());
+        assertEquals(checksum(game), checksum(copy));
+    }
+
+    private static long checksum(SpaceInvadersGame game) {
+        GameSnapshot s = new GameSnapshot(game.getSnapshotCapacity());
+        game.save(s);
+        return s.checksum();
+    }
+}
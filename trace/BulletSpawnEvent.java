@@ -0,0 +1,22 @@
+package si.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("si.BulletSpawn")
+@Label("Bullet Spawn")
+@Category({"Space Invaders", "Gameplay"})
+@StackTrace(false)
+public class BulletSpawnEvent extends Event {
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Speed")
+    public int speed;
+}
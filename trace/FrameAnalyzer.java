@@ -0,0 +1,158 @@
+package si.trace;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports frame-time jitter from a flight recording of the game, and which GC pauses
+ * and JIT compilations overlapped the frames that hitched.
+ * <p>
+ * Record with {@code java -XX:StartFlightRecording=filename=game.jfr ...}, then run
+ * {@code FrameAnalyzer game.jfr [hitchFactor]}. A frame hitches when the time from its
+ * start to the next frame's start exceeds hitchFactor (default 1.5) times the median.
+ */
+public class FrameAnalyzer {
+    private static final int MAX_HITCHES_LISTED = 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: FrameAnalyzer recording.jfr [hitchFactor]");
+            System.exit(1);
+        }
+        double hitchFactor = args.length > 1 ? Double.parseDouble(args[1]) : 1.5;
+        List<RecordedEvent> frames = new ArrayList<RecordedEvent>();
+        List<RecordedEvent> ticks = new ArrayList<RecordedEvent>();
+        List<RecordedEvent> pauses = new ArrayList<RecordedEvent>();
+        List<RecordedEvent> compilations = new ArrayList<RecordedEvent>();
+        for (RecordedEvent e : RecordingFile.readAllEvents(Paths.get(args[0]))) {
+            String name = e.getEventType().getName();
+            if (name.equals("si.Frame")) {
+                frames.add(e);
+            } else if (name.equals("si.Tick")) {
+                ticks.add(e);
+            } else if (name.equals("jdk.GCPhasePause")) {
+                pauses.add(e);
+            } else if (name.equals("jdk.Compilation")) {
+                compilations.add(e);
+            }
+        }
+        frames.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        if (frames.size() < 2) {
+            System.out.println("Fewer than two si.Frame events in the recording");
+            return;
+        }
+
+        long[] intervals = new long[frames.size() - 1];
+        long[] paints = new long[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            paints[i] = frames.get(i).getDuration().toNanos();
+            if (i + 1 < frames.size()) {
+                intervals[i] = nanosBetween(frames.get(i).getStartTime(), frames.get(i + 1).getStartTime());
+            }
+        }
+        long[] tickTimes = new long[ticks.size()];
+        for (int i = 0; i < ticks.size(); i++) {
+            tickTimes[i] = ticks.get(i).getDuration().toNanos();
+        }
+        System.out.printf("%d frames, %d ticks, %d GC pauses, %d compilations%n",
+                frames.size(), ticks.size(), pauses.size(), compilations.size());
+        printStats("frame interval", intervals);
+        printStats("paint", paints);
+        printStats("tick", tickTimes);
+        System.out.printf("jitter (std dev of frame interval): %.2f ms%n", stdDev(intervals) / 1e6);
+
+        long[] sorted = intervals.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        long hitchLimit = (long) (median * hitchFactor);
+        int hitches = 0;
+        int hitchesWithGc = 0;
+        long gcInFrames = 0;
+        for (RecordedEvent pause : pauses) {
+            if (overlapsAny(pause, frames)) {
+                gcInFrames += pause.getDuration().toNanos();
+            }
+        }
+        for (int i = 0; i < intervals.length; i++) {
+            if (intervals[i] <= hitchLimit) {
+                continue;
+            }
+            hitches++;
+            Instant from = frames.get(i).getStartTime();
+            Instant to = frames.get(i + 1).getStartTime();
+            StringBuilder cause = new StringBuilder();
+            long gc = 0;
+            for (RecordedEvent pause : pauses) {
+                if (overlaps(pause, from, to)) {
+                    gc += pause.getDuration().toNanos();
+                    cause.append(' ').append(pause.getString("name"));
+                }
+            }
+            int compiling = 0;
+            for (RecordedEvent c : compilations) {
+                if (overlaps(c, from, to)) {
+                    compiling++;
+                }
+            }
+            if (gc > 0) {
+                hitchesWithGc++;
+            }
+            if (hitches <= MAX_HITCHES_LISTED) {
+                System.out.printf("hitch at frame %d (tick %d): %.2f ms, GC %.2f ms%s, %d compilations%n",
+                        i, frames.get(i).getLong("tick"), intervals[i] / 1e6, gc / 1e6,
+                        cause.length() > 0 ? " (" + cause.substring(1) + ")" : "", compiling);
+            }
+        }
+        System.out.printf("%d hitches over %.2f ms, %d of them overlapping GC pauses; %.2f ms of GC pauses during frames%n",
+                hitches, hitchLimit / 1e6, hitchesWithGc, gcInFrames / 1e6);
+    }
+
+    private static boolean overlapsAny(RecordedEvent e, List<RecordedEvent> frames) {
+        for (RecordedEvent f : frames) {
+            if (overlaps(e, f.getStartTime(), f.getEndTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlaps(RecordedEvent e, Instant from, Instant to) {
+        return e.getStartTime().isBefore(to) && e.getEndTime().isAfter(from);
+    }
+
+    private static long nanosBetween(Instant from, Instant to) {
+        return Duration.between(from, to).toNanos();
+    }
+
+    private static void printStats(String label, long[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-15s p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms%n", label,
+                sorted[sorted.length / 2] / 1e6, sorted[(int) Math.min(sorted.length - 1, sorted.length * 0.99)] / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double stdDev(long[] values) {
+        double mean = 0;
+        for (long v : values) {
+            mean += v;
+        }
+        mean /= values.length;
+        double sum = 0;
+        for (long v : values) {
+            sum += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sum / values.length);
+    }
+}
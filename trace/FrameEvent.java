@@ -0,0 +1,17 @@
+package si.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("si.Frame")
+@Label("Frame")
+@Category({"Space Invaders", "Rendering"})
+@Description("One GameScreen.paint() call")
+public class FrameEvent extends Event {
+    @Label("Tick")
+    @Description("Simulation tick drawn by the frame")
+    public long tick;
+}
@@ -0,0 +1,27 @@
+package si.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("si.LevelTransition")
+@Label("Level Transition")
+@Category({"Space Invaders", "Gameplay"})
+@StackTrace(false)
+public class LevelTransitionEvent extends Event {
+    @Label("From Level")
+    public int fromLevel;
+
+    @Label("To Level")
+    public int toLevel;
+
+    @Label("Ships Remaining")
+    @Description("Ships left when the level ended, 0 if it was cleared")
+    public int shipsRemaining;
+
+    @Label("Score")
+    public int score;
+}
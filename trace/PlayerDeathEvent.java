@@ -0,0 +1,22 @@
+package si.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("si.PlayerDeath")
+@Label("Player Death")
+@Category({"Space Invaders", "Gameplay"})
+@StackTrace(false)
+public class PlayerDeathEvent extends Event {
+    @Label("Tick")
+    public long tick;
+
+    @Label("Level")
+    public int level;
+
+    @Label("Lives Left")
+    public int livesLeft;
+}
@@ -0,0 +1,30 @@
+package si.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("si.Tick")
+@Label("Game Tick")
+@Category({"Space Invaders", "Simulation"})
+@Description("One fixed-length simulation tick")
+public class TickEvent extends Event {
+    @Label("Tick")
+    public long tick;
+
+    @Label("Level")
+    public int level;
+
+    @Label("Paused")
+    public boolean paused;
+
+    @Label("Entities")
+    @Description("Ships, bunkers and bullets in play after the tick")
+    public int entities;
+
+    @Label("Collision Tests")
+    @Description("Candidate targets tested against bullets during the tick")
+    public int collisionTests;
+}